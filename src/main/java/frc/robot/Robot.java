@@ -7,6 +7,8 @@ package frc.robot;
 import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.utilities.SensorSampler;
+import frc.robot.utilities.perf.LoopProfiler;
 
 /**
  * The VM is configured to automatically run this class, and to call the functions corresponding to
@@ -48,7 +50,13 @@ public class Robot extends TimedRobot {
         // and running subsystem periodic() methods. This must be called from the
         // robot's periodic
         // block in order for anything in the Command-based framework to work.
+
+        // Reads every sensor once, before anything in the scheduler uses them
+        SensorSampler.getInstance().sample();
+
+        LoopProfiler.getInstance().startLoop();
         CommandScheduler.getInstance().run();
+        LoopProfiler.getInstance().endLoop();
     }
 
     /**
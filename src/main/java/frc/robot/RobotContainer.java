@@ -16,6 +16,7 @@ import edu.wpi.first.wpilibj2.command.ParallelCommandGroup;
 import edu.wpi.first.wpilibj2.command.PrintCommand;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
 import edu.wpi.first.wpilibj2.command.WaitCommand;
+import frc.robot.commands.ReadyGatedCommand;
 import frc.robot.commands.climb.ClimbAutomation;
 import frc.robot.commands.climb.ClimbMO;
 import frc.robot.commands.climb.ClimbManual;
@@ -41,24 +42,34 @@ import frc.robot.devices.LEDs.LEDCall;
 import frc.robot.devices.LEDs.LEDRange;
 import frc.robot.devices.LEDs.LEDs;
 import frc.robot.devices.Lemonlight;
-import frc.robot.devices.LidarV4;
+import frc.robot.devices.Lidar;
 import frc.robot.devices.PCM;
 import frc.robot.devices.PDP;
 import frc.robot.oi.drivers.ControllerDriver;
 import frc.robot.oi.drivers.JoystickDriver;
 import frc.robot.oi.drivers.LaunchpadDriver;
 import frc.robot.oi.drivers.ShuffleboardDriver;
+import frc.robot.subsystems.BallDetection;
 import frc.robot.subsystems.Climb;
 import frc.robot.subsystems.Conveyor;
 import frc.robot.subsystems.Drivetrain;
 import frc.robot.subsystems.Intake;
+import frc.robot.subsystems.PoseEstimator;
 import frc.robot.subsystems.Shooter;
+import frc.robot.utilities.CANBudget;
 import frc.robot.utilities.ChangeRateLimiter;
 import frc.robot.utilities.Functions;
+import frc.robot.utilities.PeriodicExecutor;
+import frc.robot.utilities.SensorSampler;
+import frc.robot.utilities.ShotMap;
+import frc.robot.utilities.StartupOrchestrator;
+import frc.robot.utilities.TargetFrame;
 import frc.robot.utilities.lists.Colors;
 import frc.robot.utilities.lists.LEDPriorities;
 import frc.robot.utilities.lists.Ports;
 import frc.robot.utilities.lists.StatusPriorities;
+import frc.robot.utilities.perf.LoopProfiler;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
 
 /**
@@ -72,6 +83,9 @@ import java.util.function.Supplier;
  */
 public class RobotContainer {
 
+    // the navX takes about 10 seconds to calibrate
+    private static final long GYRO_CALIBRATION_TIMEOUT_NS = 20_000_000_000L;
+
     private final CommandScheduler scheduler;
     private final ControllerDriver controller1;
     private final LaunchpadDriver launchpad;
@@ -83,19 +97,22 @@ public class RobotContainer {
     private final Conveyor conveyor;
     private final Intake intake;
     private final Climb climb;
+    private final PoseEstimator poseEstimator;
+    private final BallDetection ballDetection;
 
     private final Lemonlight
         targetingLimelight,
         ballDetectionLimelight;
     private final PCM pcm;
     private final AHRS gyro;
+    private final CompletableFuture<Void> gyroReady;
     private final PowerDistribution pdp;
 
     private final HomeByCurrent homeLeftArm;
     private final HomeByCurrent homeRightArm;
 
     private final ColorSensor colorSensor;
-    private final LidarV4 lidar;
+    private final Lidar lidar;
     private Command fullAutoShooterAssembly;
     private Supplier<Command> fullAutoIntake;
     private final Command teleInit;
@@ -112,7 +129,7 @@ public class RobotContainer {
         launchpad = new LaunchpadDriver(Ports.LAUNCHPAD_PORT);
         joystick = new JoystickDriver(Ports.JOYSTICK_PORT);
         pcm = new PCM(Ports.PCM_1);
-        lidar = new LidarV4(0x62);
+        lidar = Lidar.fromPreferences();
         colorSensor = new ColorSensor();
         pdp = new PowerDistribution(1, ModuleType.kRev);
 
@@ -121,17 +138,31 @@ public class RobotContainer {
                 "default", "robot on", Colors.WHITE, StatusPriorities.ON);
 
         gyro = new AHRS();
+        gyroReady = StartupOrchestrator.getInstance().run("navX", () -> waitForCalibration(gyro));
         
         targetingLimelight = new Lemonlight("gloworm", false, true);
         // TODO: need to ensure that this name is set on the limelight as well.
         ballDetectionLimelight = new Lemonlight("balldetect", true, true);
 
+        // Devices not owned by a subsystem are sampled here
+        SensorSampler.getInstance().register(snapshot -> {
+            snapshot.setGyroAngle(gyro.getAngle());
+            snapshot.setGyroRoll(gyro.getRoll());
+        });
+        SensorSampler.getInstance().register(snapshot -> {
+            TargetFrame frame = targetingLimelight.getFrame();
+            snapshot.setTarget(frame.hasTarget(), frame.getHorizontalOffset(), frame.getVerticalOffset());
+            snapshot.setTargetTiming(frame.getCaptureTime(), frame.getSequence());
+        });
+
         // Init Subsystems
-        drivetrain = new Drivetrain(gyro);
+        drivetrain = new Drivetrain(gyro, gyroReady);
         shooter = new Shooter();
         conveyor = new Conveyor(colorSensor, lidar);
         intake = new Intake();
         climb = new Climb(gyro);
+        poseEstimator = new PoseEstimator(drivetrain);
+        ballDetection = new BallDetection(ballDetectionLimelight, drivetrain);
 
         // TODO - set these values
         homeLeftArm = new HomeByCurrent(climb.getLeftArmHomeable(), .15, 20, Climb.BACK_LIMIT, Climb.FORWARD_LIMIT);
@@ -187,7 +218,7 @@ public class RobotContainer {
                 // new InstantCommand(() ->
                 // ballDetectionLimelight.setLEDMode(LEDModes.FORCE_OFF)),
 
-                new ParallelCommandGroup(homeLeftArm, homeRightArm),
+                new ReadyGatedCommand(new ParallelCommandGroup(homeLeftArm, homeRightArm), climb),
 
                 new InstantCommand(() -> {
                     launchpad.bigLEDRed.set(false);
@@ -200,20 +231,26 @@ public class RobotContainer {
         setDefaultCommands();
         configureButtonBindings();
 
+        // Times every command, must be after the button bindings
+        LoopProfiler.getInstance().install(scheduler);
+
         // Init Telemetry
         initTelemetry();
     }
 
     private void setDefaultCommands() {
         // drive by controller
-        drivetrain.setDefaultCommand(new ArcadeDrive(
+        // nothing drives the motors until they have been configured
+        drivetrain.setDefaultCommand(new ReadyGatedCommand(new ArcadeDrive(
                 drivetrain,
                 controller1.rightTrigger,
                 controller1.leftTrigger,
                 controller1.leftX, 
-                controller1.dPadAny));
-        intake.setDefaultCommand(new DefaultIntake(intake, conveyor));
-        conveyor.setDefaultCommand(new ConveyorAutomation(conveyor, intake, shooter));
+                controller1.dPadAny), drivetrain));
+        intake.setDefaultCommand(new ReadyGatedCommand(
+                new DefaultIntake(intake, conveyor), intake, conveyor));
+        conveyor.setDefaultCommand(new ReadyGatedCommand(
+                new ConveyorAutomation(conveyor, intake, shooter), conveyor, intake, shooter));
     }
 
     /**
@@ -279,6 +316,8 @@ public class RobotContainer {
     private void initTelemetry() {
         //SmartDashboard.putData("PDP", pdp);
         SmartDashboard.putData("PCM", pcm);
+        SmartDashboard.putData("CAN", CANBudget.getInstance());
+        // startup steps publish themselves under Startup as they are tracked
         // SmartDashboard.putData("Drivetrain", drivetrain);
         // SmartDashboard.putData("Lemonlight", targetingLimelight);
         // SmartDashboard.putData("Lemonlight", ballDetectionLimelight);
@@ -288,6 +327,10 @@ public class RobotContainer {
         // SmartDashboard.putData("Color Sensor", colorSensor);
         // SmartDashboard.putData("Lidar", lidar);
         //SmartDashboard.putData("Climb", climb);
+        SmartDashboard.putData("Pose Estimator", poseEstimator);
+        SmartDashboard.putData("Ball Detection", ballDetection);
+        // loads the shot map now rather than on the first shot
+        SmartDashboard.putData("Shot Map", ShotMap.getInstance());
     }
 
     /**
@@ -304,12 +347,35 @@ public class RobotContainer {
      * runs when the robot is powered on.
      */
     public void robotInit() {
-        gyro.calibrate();
+        // starts the shared executor thread now so it is never created during a match
+        PeriodicExecutor.getInstance();
+
         ShuffleboardDriver.init();
        
 
     }
 
+    // the navX calibrates itself on power up, this waits for it to finish
+    private static void waitForCalibration(AHRS gyro) {
+        gyro.calibrate();
+
+        long deadline = System.nanoTime() + GYRO_CALIBRATION_TIMEOUT_NS;
+        while (!gyro.isConnected() || gyro.isCalibrating()) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException(gyro.isConnected()
+                    ? "navX did not finish calibrating"
+                    : "navX is not connected");
+            }
+
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
     /**
      * runs once every ~20ms when in teleop.
      */
@@ -358,7 +424,7 @@ public class RobotContainer {
             //autoInit,
             //new ShooterAtStart(shooter, conveyor).withTimeout(10),
             //new InstantCommand(() -> {drivetrain.setLeftMotorPower(-0.3); drivetrain.setRightMotorPower(-0.3);}),
-            new DriveByTime(drivetrain, 3, -0.3)
+            new ReadyGatedCommand(new DriveByTime(drivetrain, 3, -0.3), drivetrain)
             //new InstantCommand(() -> drivetrain.stop())
             // fullAutoShooterAssembly,
             // fullAutoIntake.get(),
@@ -0,0 +1,84 @@
+package frc.robot.commands;
+
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.utilities.Readiness;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Command which holds another command until the devices it needs have started up.
+ * The wrapped command isn't initialized until then, the wrapper just idles and keeps
+ * its requirements.
+ */
+public class ReadyGatedCommand extends CommandBase {
+
+    private final Command command;
+    private final CompletableFuture<Void> ready;
+
+    private boolean started;
+
+    /**
+     * Wraps a command so it waits for devices.
+     * It is important to not use the command in any way after it is passed.
+     *
+     * @param command the command to hold
+     * @param devices the devices the command needs
+     */
+    public ReadyGatedCommand(Command command, Readiness... devices) {
+        this.command = command;
+
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[devices.length];
+        for (int i = 0; i < devices.length; i++) {
+            futures[i] = devices[i].getReadiness();
+        }
+        ready = CompletableFuture.allOf(futures);
+
+        // same as CommandThreader, the requirements are set directly
+        this.m_requirements = command.getRequirements();
+        setName(command.getName());
+    }
+
+    @Override
+    public void initialize() {
+        started = false;
+        startIfReady();
+    }
+
+    @Override
+    public void execute() {
+        if (!started) {
+            startIfReady();
+            return;
+        }
+
+        command.execute();
+    }
+
+    private void startIfReady() {
+        if (ready.isDone()) {
+            command.initialize();
+            started = true;
+        }
+    }
+
+    @Override
+    public void end(boolean interrupted) {
+        if (started) {
+            command.end(interrupted);
+        }
+    }
+
+    @Override
+    public boolean isFinished() {
+        return started && command.isFinished();
+    }
+
+    @Override
+    public boolean runsWhenDisabled() {
+        return command.runsWhenDisabled();
+    }
+
+    public boolean isStarted() {
+        return started;
+    }
+}
@@ -14,6 +14,8 @@ import frc.robot.subsystems.Drivetrain;
 import frc.robot.utilities.ChangeRateLimiter;
 import frc.robot.utilities.Functions;
 import frc.robot.utilities.RollingAverage;
+import frc.robot.utilities.SensorSampler;
+import frc.robot.utilities.SensorSnapshot;
 import frc.robot.utilities.SimpleButton;
 import frc.robot.utilities.lists.AxisPriorities;
 
@@ -37,7 +39,10 @@ public class ArcadeDrive extends CommandBase {
 
     private static final double DEAD_ZONE = .01;
 
-    private static final double MAX_CHANGE_RATE = 0.05;
+    // power per second, the same as the old 0.05 per 20 ms loop
+    private static final double
+        MAX_ACCEL = 2.5,
+        MAX_DECEL = 2.5;
 
     private final RollingAverage avgSpeed = new RollingAverage(2, true);
 
@@ -67,7 +72,7 @@ public class ArcadeDrive extends CommandBase {
         this.reversePowerAxis = reversePowerAxis.prioritize(AxisPriorities.DRIVE);
         this.turnAxis = turnAxis.prioritize(AxisPriorities.DRIVE);
 
-        limiter = new ChangeRateLimiter(MAX_CHANGE_RATE);
+        limiter = ChangeRateLimiter.perSecond(MAX_ACCEL, MAX_DECEL);
 
         addRequirements(drivetrain);
         isSingleAxis = false;
@@ -93,7 +98,7 @@ public class ArcadeDrive extends CommandBase {
         this.reversePowerAxis = null;
         this.turnAxis = turnAxis.prioritize(AxisPriorities.DRIVE);
 
-        limiter = new ChangeRateLimiter(MAX_CHANGE_RATE);
+        limiter = ChangeRateLimiter.perSecond(MAX_ACCEL, MAX_DECEL);
 
         addRequirements(drivetrain);
         isSingleAxis = true;
@@ -111,6 +116,7 @@ public class ArcadeDrive extends CommandBase {
     // Called every time the scheduler runs while the command is scheduled.
     @Override
     public void execute() {
+        SensorSnapshot sensors = SensorSampler.getInstance().get();
 
         double power;
 
@@ -133,7 +139,7 @@ public class ArcadeDrive extends CommandBase {
 
         avgPower.update(Math.abs(power));
 
-        avgSpeed.update(Math.abs(drivetrain.getRightRPM()) + Math.abs(drivetrain.getLeftRPM()));
+        avgSpeed.update(Math.abs(sensors.getRightDriveRPM()) + Math.abs(sensors.getLeftDriveRPM()));
 
         //shifts into low gear if drivetrain stalled
         if ((avgPower.getAverage() > .5) && avgSpeed.getAverage() < 15) {
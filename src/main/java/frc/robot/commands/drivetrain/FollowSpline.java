@@ -10,23 +10,40 @@ import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.trajectory.Trajectory;
-import edu.wpi.first.math.trajectory.TrajectoryConfig;
-import edu.wpi.first.math.trajectory.TrajectoryGenerator;
 import edu.wpi.first.wpilibj2.command.CommandBase;
 import edu.wpi.first.wpilibj2.command.RamseteCommand;
 import frc.robot.subsystems.Drivetrain;
+import frc.robot.utilities.trajectory.TrajectoryCache;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Command to make drivetrain follow splines.
+ * The trajectory is generated in the background by the {@link TrajectoryCache},
+ * the command waits for it without blocking the loop.
  *
  * @apiNote THIS IS A BAD IMPLEMENTATION AND SHOULD BE UPDATED.
  */
 public class FollowSpline extends CommandBase {
 
+    private static final double
+        MAX_VELOCITY = 2.5,
+        MAX_ACCELERATION = 2.5;
+
+    // scaled by 3 for testing so i dont break my walls
+    // Start at the origin facing the +X direction
+    private static final Pose2d START = new Pose2d(0, 0, new Rotation2d(0));
+    // Pass through these two interior waypoints, making an 's' curve path
+    private static final List<Translation2d> WAYPOINTS =
+        List.of(new Translation2d(3, 1).div(3), new Translation2d(6, -1).div(3));
+    // End 3 meters straight ahead of where we started, facing forward
+    private static final Pose2d END = new Pose2d(new Translation2d(9, 0).div(3), new Rotation2d(0));
+
     private final Drivetrain drivetrain;
 
+    private CompletableFuture<Trajectory> trajectory;
     private RamseteCommand command;
+    private boolean failed;
 
     /**
      * The Constructor.
@@ -38,34 +55,54 @@ public class FollowSpline extends CommandBase {
 
         this.drivetrain = drivetrain;
         addRequirements(drivetrain);
+
+        // starts generating early, so it is usually ready by the time the command runs
+        requestTrajectory();
+    }
+
+    // the voltage constraint depends on the gear, so this can give a different trajectory
+    private CompletableFuture<Trajectory> requestTrajectory() {
+        return TrajectoryCache.getInstance().get(
+            START,
+            WAYPOINTS,
+            END,
+            // Add kinematics to ensure max speed is actually obeyed
+            Drivetrain.DriveKinimatics,
+            MAX_VELOCITY,
+            MAX_ACCELERATION,
+            // Apply the voltage constraint
+            drivetrain.getVoltageConstraint());
     }
 
     @Override
     public void initialize() {
-        double[] pid = drivetrain.getPid();
+        trajectory = requestTrajectory();
+        command = null;
+        failed = false;
+    }
+
+    @Override
+    public void execute() {
+        if (command == null) {
+            // waits for the trajectory without blocking
+            if (!trajectory.isDone()) {
+                return;
+            }
+
+            if (trajectory.isCompletedExceptionally()) {
+                System.out.println("spline generation failed");
+                failed = true;
+                return;
+            }
+
+            startFollowing(trajectory.join());
+        }
 
-        // Add kinematics to ensure max speed is actually obeyed
-        // Apply the voltage constraint
-        TrajectoryConfig config = new TrajectoryConfig(2.5, 2.5)
-                // Add kinematics to ensure max speed is actually obeyed
-                .setKinematics(Drivetrain.DriveKinimatics)
-                // Apply the voltage constraint
-                .addConstraint(drivetrain.getVoltageConstraint());
-
-        // scaled by 3 for testing so i dont break my walls
-        // Start at the origin facing the +X direction
-        // Pass through these two interior waypoints, making an 's' curve path
-        // End 3 meters straight ahead of where we started, facing forward
-        // Pass config
-        Trajectory trajectory = TrajectoryGenerator.generateTrajectory(
-                // Start at the origin facing the +X direction
-                new Pose2d(0, 0, new Rotation2d(0)),
-                // Pass through these two interior waypoints, making an 's' curve path
-                List.of(new Translation2d(3, 1).div(3), new Translation2d(6, -1).div(3)),
-                // End 3 meters straight ahead of where we started, facing forward
-                new Pose2d(new Translation2d(9, 0).div(3), new Rotation2d(0)),
-                // Pass config
-                config);
+        command.execute();
+    }
+
+    private void startFollowing(Trajectory trajectory) {
+        double[] pid = drivetrain.getPid();
 
         command =
                 new RamseteCommand(
@@ -85,19 +122,16 @@ public class FollowSpline extends CommandBase {
         command.initialize();
     }
 
-    @Override
-    public void execute() {
-        command.execute();
-    }
-
     @Override
     public boolean isFinished() {
-        return command.isFinished();
+        return failed || (command != null && command.isFinished());
     }
 
     @Override
     public void end(boolean interrupted) {
-        if (interrupted) {
+        if (command == null) {
+            drivetrain.stop();
+        } else if (interrupted) {
             command.cancel();
         }
     }
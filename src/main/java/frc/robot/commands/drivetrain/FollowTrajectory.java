@@ -51,7 +51,6 @@ public class FollowTrajectory extends CommandBase {
     @Override
     public void execute() {
         command.execute();
-        drivetrain.updateOdometry();
     }
 
     @Override
@@ -4,30 +4,45 @@
 
 package frc.robot.commands.drivetrain;
 
-import edu.wpi.first.math.controller.RamseteController;
 import edu.wpi.first.math.trajectory.Trajectory;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.CommandBase;
 import edu.wpi.first.wpilibj2.command.FunctionalCommand;
-import edu.wpi.first.wpilibj2.command.RamseteCommand;
 import frc.robot.commands.CommandThreader;
 import frc.robot.devices.LEDs.LEDCall;
 import frc.robot.devices.LEDs.LEDRange;
 import frc.robot.subsystems.Drivetrain;
 import frc.robot.utilities.lists.Colors;
 import frc.robot.utilities.lists.LEDPriorities;
+import frc.robot.utilities.trajectory.RamseteFollower;
+import frc.robot.utilities.trajectory.SampledTrajectory;
+import frc.robot.utilities.trajectory.UniformTrajectory;
 
 /**
  * Command to follow a trajectory.
  * This command is threaded using Command Threader
  * This means the trajectory calculations runs every ~5ms
+ * Nothing is allocated while following, so the thread never makes garbage.
  */
 public class FollowTrajectoryThreaded extends CommandBase {
 
-    private final Trajectory trajectory;
+    // TODO tune controller values
+    private static final double
+        RAMSETE_B = 1.5,
+        RAMSETE_ZETA = 0.8;
+
+    private final SampledTrajectory trajectory;
     private final Drivetrain drivetrain;
     private final int period;
     private CommandThreader commandThreader;
 
+    // reused every tick
+    private final RamseteFollower follower =
+            new RamseteFollower(RAMSETE_B, RAMSETE_ZETA, Drivetrain.DRIVE_WIDTH);
+    private final UniformTrajectory.Sample target = new UniformTrajectory.Sample();
+    private final double[] pose = new double[4];
+    private double startTime;
+
     private final LEDCall splineLEDs = new LEDCall(LEDPriorities.SPLINES, LEDRange.All)
             .sine(Colors.PURPLE);
 
@@ -40,6 +55,16 @@ public class FollowTrajectoryThreaded extends CommandBase {
      * @param trajectory path to the saved SerializableMultiGearTrajectory object
      */
     public FollowTrajectoryThreaded(Drivetrain drivetrain, Trajectory trajectory) {
+        this(drivetrain, new UniformTrajectory(trajectory));
+    }
+
+    /**
+     * command to follow a trajectory which has already been resampled or compiled.
+     *
+     * @param drivetrain drivetrain to control
+     * @param trajectory the trajectory
+     */
+    public FollowTrajectoryThreaded(Drivetrain drivetrain, SampledTrajectory trajectory) {
         super();
 
         this.drivetrain = drivetrain;
@@ -54,39 +79,28 @@ public class FollowTrajectoryThreaded extends CommandBase {
     public void initialize() {
         splineLEDs.activate();
 
-        RamseteCommand ramseteCommand =
-                new RamseteCommand(
-                        trajectory,
-                        drivetrain::getPose,
-                        // TODO tune controller values
-                        new RamseteController(1.5, 0.8),
-                        Drivetrain.DriveKinimatics,
-                        drivetrain::setMotorTargetSpeed,
-                        drivetrain);
-
         drivetrain.setPose(trajectory.getInitialPose());
 
-        // Wraps the command, so we can update odometry every cycle.
-        Runnable onExecute =
-                () -> {
-                    drivetrain.updateOdometry();
-                    ramseteCommand.execute();
-                };
-
-        // Wraps the ramseteCommand in a functional command,
-        // so we can update drivetrain odometry still.
+        // odometry is updated by the drivetrain on its own task
         FunctionalCommand command = new FunctionalCommand(
-                ramseteCommand::initialize,
-                onExecute,
-                ramseteCommand::end,
-                ramseteCommand::isFinished,
+                () -> startTime = Timer.getFPGATimestamp(),
+                this::followStep,
+                interrupted -> drivetrain.setMotorTargetSpeed(0, 0),
+                () -> Timer.getFPGATimestamp() - startTime > trajectory.getTotalTimeSeconds(),
                 drivetrain);
 
         // Creates the command threader
         commandThreader = new CommandThreader(command, period, 10);
         commandThreader.initialize();
+    }
+
+    // runs on the executor thread every period
+    private void followStep() {
+        trajectory.sample(Timer.getFPGATimestamp() - startTime, target);
+        drivetrain.readPose(pose);
 
-        System.out.println("thread started");
+        follower.calculate(pose[0], pose[1], pose[2], target);
+        drivetrain.setMotorTargetSpeed(follower.getLeftSpeed(), follower.getRightSpeed());
     }
 
     @Override
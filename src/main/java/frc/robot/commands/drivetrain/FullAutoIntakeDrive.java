@@ -2,23 +2,33 @@ package frc.robot.commands.drivetrain;
 
 import edu.wpi.first.math.controller.PIDController;
 import edu.wpi.first.wpilibj2.command.CommandBase;
-import frc.robot.devices.Lemonlight;
+import frc.robot.subsystems.BallDetection;
 import frc.robot.subsystems.Drivetrain;
+import frc.robot.utilities.BallTracker;
 import frc.robot.utilities.Functions;
 import frc.robot.utilities.lists.PIDValues;
 
 /**
  * Full auto intake mode.
+ * Locks onto one tracked ball and drives to it, only picking a new ball once that track is dropped.
+ * With no ball in view it heads for the nearest ball on the ball map, and only spins to search
+ * if none are remembered.
  */
 public class FullAutoIntakeDrive extends CommandBase {
 
     private static final double DISTANCE_FROM_BALL = 0;
 
+    // TODO - set these
+    private static final double
+        // power used to drive towards a remembered ball
+        SEARCH_POWER = 0.2,
+        // only drives towards a remembered ball once facing this close to it (degrees)
+        SEARCH_ANGLE = 20;
+
     // subsystems
     private Drivetrain drivetrain;
 
-    // devices
-    private Lemonlight limelight;
+    private BallDetection ballDetection;
 
     // PID controllers
     private PIDController movePID;
@@ -28,19 +38,25 @@ public class FullAutoIntakeDrive extends CommandBase {
     private double limelightDistanceEstimate;
     private boolean limelightHasTarget;
     private double horizontalOffset;
+    private double alignPower;
+    private double movePower;
     private long timeStart;
+    private long trackId;
+    private double lastSeen;
+
+    private final double[] pose = new double[4];
     /**
      * Constructor.
      *
      * @param drivetrain The drivetrain subsystem
-     * @param limelight The ball detection limelight
+     * @param ballDetection The ball detection subsystem
      */
 
     public FullAutoIntakeDrive(Drivetrain drivetrain,
-        Lemonlight limelight) {
+        BallDetection ballDetection) {
         timeStart = System.currentTimeMillis() / 1000;
         this.drivetrain = drivetrain;
-        this.limelight = limelight;
+        this.ballDetection = ballDetection;
         this.movePID = new PIDController(PIDValues.MOVE_P, PIDValues.MOVE_I, PIDValues.MOVE_D);
         this.alignPID = new PIDController(PIDValues.ALIGN_P, PIDValues.ALIGN_I, PIDValues.ALIGN_D);
 
@@ -57,38 +73,67 @@ public class FullAutoIntakeDrive extends CommandBase {
     public void initialize() {
         movePID.reset();
         alignPID.reset();
+        trackId = 0;
+        lastSeen = 0;
+        alignPower = 0;
+        movePower = 0;
     }
 
     @Override
     public void execute() {
-        limelightHasTarget = limelight.hasTarget();
-        limelightDistanceEstimate = Lemonlight.getLimelightDistanceEstimateIN(
-            Lemonlight.BALL_MOUNT_HEIGHT,
-            Lemonlight.BALL_MOUNT_ANGLE,
-            Lemonlight.BALL_TARGET_HEIGHT,
-            limelight.getVerticalOffset());
-        horizontalOffset = limelight.getHorizontalOffset();
+        BallTracker tracker = ballDetection.getTracker();
 
-        System.out.println("distance : " + limelightDistanceEstimate + "   hzo: " + horizontalOffset);
+        int slot = tracker.indexOf(trackId);
+        if (slot < 0) {
+            slot = ballDetection.getBestTrack();
+            trackId = slot < 0 ? 0 : tracker.getId(slot);
+        }
 
-        if (limelightHasTarget) {
-            double alignPower = alignPID.calculate(horizontalOffset);
-            double movePower =  -Functions.clampDouble(movePID.calculate(limelightDistanceEstimate), 0.5, -0.5);
+        limelightHasTarget = slot >= 0;
 
-            System.out.println("align: " + alignPower + "   drive: " + movePower);
+        // the controllers only step when the ball has been seen again, not while it coasts
+        if (limelightHasTarget && tracker.getLastSeen(slot) != lastSeen) {
+            lastSeen = tracker.getLastSeen(slot);
+            limelightDistanceEstimate = tracker.getForward(slot);
+            horizontalOffset = tracker.getAngle(slot);
+
+            alignPower = alignPID.calculate(horizontalOffset);
+            movePower = -Functions.clampDouble(movePID.calculate(limelightDistanceEstimate), 0.5, -0.5);
+        }
+
+        if (limelightHasTarget) {
             drivetrain.setLeftMotorPower(movePower - alignPower);
             drivetrain.setRightMotorPower(movePower + alignPower);
         } else {
             timeStart = System.currentTimeMillis() / 1000;
-            drivetrain.stop();
+            driveToRememberedBall();
+        }
+    }
+
+    private void driveToRememberedBall() {
+        drivetrain.readPose(pose);
+        double[] ball = ballDetection.findRememberedBall(pose[0], pose[1]);
+
+        if (ball == null) {
             drivetrain.setLeftMotorPower(.1);
             drivetrain.setRightMotorPower(-.1);
+            return;
         }
+
+        // clockwise positive, the same as the camera's horizontal offset
+        double bearing = Math.atan2(ball[1] - pose[1], ball[0] - pose[0]);
+        double angle = Math.toDegrees(Math.IEEEremainder(pose[2] - bearing, 2 * Math.PI));
+
+        double turnPower = alignPID.calculate(angle);
+        double drivePower = Math.abs(angle) < SEARCH_ANGLE ? SEARCH_POWER : 0;
+
+        drivetrain.setLeftMotorPower(drivePower - turnPower);
+        drivetrain.setRightMotorPower(drivePower + turnPower);
     }
 
     @Override
     public boolean isFinished() {
-        return (!limelight.hasTarget() && System.currentTimeMillis() / 1000 - timeStart > 5)
+        return (!limelightHasTarget && System.currentTimeMillis() / 1000 - timeStart > 5)
             || movePID.atSetpoint();
     }
 }
@@ -2,7 +2,7 @@ package frc.robot.commands.intake;
 
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
 import frc.robot.commands.drivetrain.FullAutoIntakeDrive;
-import frc.robot.devices.Lemonlight;
+import frc.robot.subsystems.BallDetection;
 import frc.robot.subsystems.Drivetrain;
 import frc.robot.subsystems.Intake;
 
@@ -11,8 +11,8 @@ import frc.robot.subsystems.Intake;
  */
 public class FullAutoIntake extends SequentialCommandGroup {
 
-    public FullAutoIntake(Drivetrain drivetrain, Intake intake, Lemonlight limelight) {
-        addCommands(new LowerIntake(intake), new FullAutoIntakeDrive(drivetrain, limelight));
+    public FullAutoIntake(Drivetrain drivetrain, Intake intake, BallDetection ballDetection) {
+        addCommands(new LowerIntake(intake), new FullAutoIntakeDrive(drivetrain, ballDetection));
     }
     
 }
\ No newline at end of file
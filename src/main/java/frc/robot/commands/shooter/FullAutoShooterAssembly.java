@@ -1,6 +1,7 @@
 package frc.robot.commands.shooter;
 
 import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.math.kinematics.DifferentialDriveWheelSpeeds;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj2.command.CommandBase;
 import frc.robot.devices.Lemonlight;
@@ -9,6 +10,11 @@ import frc.robot.subsystems.Conveyor.ConveyorState;
 import frc.robot.subsystems.Drivetrain;
 import frc.robot.subsystems.Shooter;
 import frc.robot.utilities.Functions;
+import frc.robot.utilities.HeadingLock;
+import frc.robot.utilities.SensorSampler;
+import frc.robot.utilities.SensorSnapshot;
+import frc.robot.utilities.ShotMap;
+import frc.robot.utilities.ShotSolver;
 import frc.robot.utilities.lists.PIDValues;
 
 /**
@@ -22,7 +28,13 @@ public class FullAutoShooterAssembly extends CommandBase {
     
     // PID controllers
     protected PIDController movePID;
-    protected PIDController alignPID;
+
+    // turns to the target between vision frames
+    protected HeadingLock headingLock;
+
+    // leads the shot by the robot's velocity
+    protected ShotSolver shotSolver;
+    protected double robotSpeed;
 
     // tracker variables
     protected ConveyorState indexState;
@@ -48,13 +60,22 @@ public class FullAutoShooterAssembly extends CommandBase {
         TARGET_WRONG_COLOR_MISS = 45,
         TARGET_MOTOR_SPEED_ACCURACY = 3,
         IDEAL_SHOOTING_DISTANCE = 100,
-        SHOOTER_IDLE_SPEED = 1400;
+        SHOOTER_IDLE_SPEED = 1400,
+        // older frames than this (s) are treated as seeing nothing
+        MAX_TARGET_AGE = 0.25,
+        // shots are only taken on the move slower than this (m/s)
+        MAX_SHOOTING_SPEED = 2.0;
 
     // devices
     protected Lemonlight limelight;
 
     protected boolean hasRecordedLimelightDistance = false;
 
+    // the frame the target values came from, and the last one the heading lock was aimed with
+    protected long targetFrame;
+    protected double targetCaptureTime;
+    protected long lastAlignedFrame = -1;
+
     /**
      * Command for running the shooter in full auto mode.
      *
@@ -73,13 +94,12 @@ public class FullAutoShooterAssembly extends CommandBase {
         this.drivetrain = drivetrain;
         this.limelight = limelight;
 
-        this.alignPID = new PIDController(PIDValues.ALIGN_P, PIDValues.ALIGN_I, PIDValues.ALIGN_D);
+        this.headingLock = new HeadingLock(drivetrain);
+        this.shotSolver = new ShotSolver(ShotMap.getInstance()::getRPM);
         this.movePID = new PIDController(PIDValues.MOVE_P, PIDValues.MOVE_I, PIDValues.MOVE_D);
 
         // TODO - Set these, including the constants
-        alignPID.setTolerance(TARGET_HORIZONTAL_ACCURACY, 1);
         movePID.setTolerance(1, 1);
-        alignPID.setSetpoint(0);
         movePID.setSetpoint(IDEAL_SHOOTING_DISTANCE);
 
         addRequirements(shooter, drivetrain);
@@ -100,28 +120,14 @@ public class FullAutoShooterAssembly extends CommandBase {
 
     /**
      * Returns the desired motor speed based on the distance from the target and the hood position.
+     * The speeds come from the {@link ShotMap}.
      *
      * @param distance The distance from the target.
      * @param hoodPos The hood position.
      * @return motorSpeed The desired motor speed
      */
     public double solveMotorSpeed(double distance, boolean hoodPos) {
-        // Annoyingly, exponent notation requires importing a math library.
-        // So, for simplicity, we do not use it.
-        // TODO - Test the shooter and do a regression to find the right formula.
-        // Add higher order terms if necessary.
-        if (hoodPos) {
-            return 0 * distance * distance * distance
-                + 0 * distance * distance
-                + 0 * distance
-                + 0;
-        } else {
-            return 
-                + (0.000257791 * distance * distance * distance)
-                + (-0.0448 * distance * distance)
-                + 9.24 * distance
-                + 1191.15;
-        }
+        return ShotMap.getInstance().getRPM(distance, hoodPos);
     }
 
     /**
@@ -157,41 +163,38 @@ public class FullAutoShooterAssembly extends CommandBase {
         double limelightDistanceEstimate) {
         
         //sets if align target based on ball color
-        if (isAccurate) {
-            alignPID.setSetpoint(0);
-        } else {
-            alignPID.setSetpoint(TARGET_WRONG_COLOR_MISS);
-        }
-        
-        double leftPower = 0;
-        double rightPower = 0;
+        double aimOffset = isAccurate ? 0 : TARGET_WRONG_COLOR_MISS;
 
-        //align to target
-        double alignPower = alignPID.calculate(horizontalOffset);
-        leftPower += alignPower;
-        rightPower += -alignPower;
+        //the heading to turn to only changes with a new frame, the heading lock turns in between
+        if (targetFrame != lastAlignedFrame
+            && headingLock.setTargetFromVision(shotSolver.getAimOffset() - aimOffset, targetCaptureTime)) {
+            lastAlignedFrame = targetFrame;
+        }
+        headingLock.start();
 
+        double movePower = 0;
 
         //move towards target
-        if (Functions.isWithin(horizontalOffset, 0, OK_TO_MOVE_OFSET)) {
+        if (Functions.isWithin(headingLock.getError(), 0, OK_TO_MOVE_OFSET)) {
             //records current distance to be heald with pid, clamped to the max and min range of the shooter
             if (!hasRecordedLimelightDistance) {
-                movePID.setSetpoint(Functions.clampDouble(horizontalOffset, MAX_SHOOTER_RANGE, MIN_SHOOTER_RANGE));
+                movePID.setSetpoint(Functions.clampDouble(limelightDistanceEstimate, MAX_SHOOTER_RANGE, MIN_SHOOTER_RANGE));
                 hasRecordedLimelightDistance = true;
             }
 
-            double movePower = movePID.calculate(limelightDistanceEstimate);
-
-            leftPower += movePower;
-            rightPower += movePower;
-
+            movePower = movePID.calculate(limelightDistanceEstimate);
         }
 
-        //sets drivetrain powers
-        drivetrain.setLeftMotorPower(leftPower);
-        drivetrain.setRightMotorPower(rightPower);
+        headingLock.setForwardPower(movePower);
 
-        return alignPID.atSetpoint() && movePID.atSetpoint();
+        //the solver leads the shot, so it can be taken while still driving if it's in range
+        boolean canShootMoving = Functions.isWithin(
+                shotSolver.getDistance(),
+                (MAX_SHOOTER_RANGE + MIN_SHOOTER_RANGE) / 2,
+                MAX_SHOOTER_RANGE - MIN_SHOOTER_RANGE)
+            && Math.abs(robotSpeed) <= MAX_SHOOTING_SPEED;
+
+        return headingLock.isAligned(TARGET_HORIZONTAL_ACCURACY) && (movePID.atSetpoint() || canShootMoving);
     }
 
     /**
@@ -253,29 +256,44 @@ public class FullAutoShooterAssembly extends CommandBase {
     @Override
     public void initialize() {
         teamColor = getTeamColor();
-        alignPID.reset();
         movePID.reset();
         hasRecordedLimelightDistance = false;
+        lastAlignedFrame = -1;
     }
 
     @Override
     public void execute() {
-        limelightHasTarget = limelight.hasTarget();
+        SensorSnapshot sensors = SensorSampler.getInstance().get();
+
+        limelightHasTarget = sensors.hasTarget()
+            && sensors.getTimestamp() - sensors.getTargetCaptureTime() < MAX_TARGET_AGE;
         limelightDistanceEstimate = Lemonlight.getLimelightDistanceEstimateIN(
             Lemonlight.MAIN_MOUNT_HEIGHT,
             Lemonlight.MAIN_MOUNT_ANGLE,
             Lemonlight.MAIN_TARGET_HEIGHT,
-            limelight.getVerticalOffset());
+            sensors.getTargetVerticalOffset());
 
-        smoothedHorizontalOffset = limelight.getHorizontalOffset();
+        smoothedHorizontalOffset = sensors.getTargetHorizontalOffset();
+        targetFrame = sensors.getTargetFrame();
+        targetCaptureTime = sensors.getTargetCaptureTime();
         indexState = conveyor.getIndexState();
         hoodPos = shooter.getHoodPos();
-        currentMotorSpeed = shooter.getShooterRPM();
+        currentMotorSpeed = sensors.getShooterRPM();
+
+        DifferentialDriveWheelSpeeds wheelSpeeds = drivetrain.getWheelSpeeds();
+        robotSpeed = (wheelSpeeds.leftMetersPerSecond + wheelSpeeds.rightMetersPerSecond) / 2;
+        shotSolver.solve(
+            limelightDistanceEstimate,
+            smoothedHorizontalOffset,
+            wheelSpeeds.leftMetersPerSecond,
+            wheelSpeeds.rightMetersPerSecond,
+            hoodPos);
 
         if (limelightHasTarget) {
 
-            isHoodSet = setHood(shooter, limelightDistanceEstimate, hoodPos);
-            isSpooled = spool(shooter, limelightDistanceEstimate, currentMotorSpeed, hoodPos);
+            // the hood and speed are set for where the shot is aimed, not where the hub is
+            isHoodSet = setHood(shooter, shotSolver.getDistance(), hoodPos);
+            isSpooled = spool(shooter, shotSolver.getDistance(), currentMotorSpeed, hoodPos);
             isDrivenAndAligned = driveAndAlign(drivetrain,
                 smoothedHorizontalOffset,
                 (indexState == teamColor),
@@ -299,7 +317,7 @@ public class FullAutoShooterAssembly extends CommandBase {
 
         } else {
             shooter.setMotorTargetSpeed(SHOOTER_IDLE_SPEED);
-            alignPID.reset();
+            headingLock.stop();
             movePID.reset();
             findTarget(drivetrain);
             shooter.setState(Shooter.States.NO_TARGET);
@@ -309,10 +327,10 @@ public class FullAutoShooterAssembly extends CommandBase {
     @Override
     public void end(boolean interrupted) {
         shooter.stop();
+        headingLock.stop();
+        drivetrain.stop();
         
-        alignPID.reset();
         movePID.reset();
-        alignPID.close();
         movePID.close();
         shooter.setState(Shooter.States.NOT_SHOOTING);
     }
@@ -1,24 +1,38 @@
 package frc.robot.devices;
 
-import com.revrobotics.ColorMatch;
-import com.revrobotics.ColorMatchResult;
 import com.revrobotics.ColorSensorV3;
 import edu.wpi.first.util.sendable.Sendable;
 import edu.wpi.first.util.sendable.SendableBuilder;
 import edu.wpi.first.wpilibj.I2C;
-import edu.wpi.first.wpilibj.util.Color;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.utilities.Readiness;
+import frc.robot.utilities.StartupOrchestrator;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Contains methods for interfacing with the REV Color Sensor V3.
+ * The sensor is brought up in the background, until then every reading is empty.
+ * Once it is up it is read by its own notifier, and the getters return the latest reading
+ * without touching I2C. Each reading is published as a whole, use {@link #getReading()} to get
+ * several values which are from the same reading.
  */
-public class ColorSensor implements Sendable {
+public class ColorSensor implements Sendable, Readiness {
 
-    private ColorSensorV3 colorSensor;
-    private ColorMatch colorMatcher;
+    /**
+     * The colors the sensor can see.
+     */
+    public enum BallColor {
+        BLUE,
+        RED,
+        // nothing in front of the sensor
+        NONE,
+        // the sensor hasn't been read yet
+        UNKNOWN
+    }
 
-    private final Color blueTarget;
-    private final Color redTarget;
-    private final Color noTarget;
+    // the sensor measures color every 50ms by default, this reads it at twice that
+    public static final double SAMPLE_PERIOD = 0.025;
 
     // The target RGB values for the specific shades of blue and red used for the balls.
     // We may need to re-adjust these later.
@@ -33,21 +47,79 @@ public class ColorSensor implements Sendable {
         NO_TARGET_GREEN = 0.475,
         NO_TARGET_BLUE = 0.274;
 
+    // null until the sensor has been brought up
+    private volatile ColorSensorV3 colorSensor;
+    private final Notifier sampler;
+    private final CompletableFuture<Void> readiness;
+
+    // the latest reading, replaced as a whole by the sampler thread
+    private volatile Reading reading = Reading.NONE;
 
     /**
      * Creates a new ColorSensor object.
      */
     public ColorSensor() {
-        colorSensor = new ColorSensorV3(I2C.Port.kOnboard);
-        colorMatcher = new ColorMatch();
+        sampler = new Notifier(this::sample);
+        sampler.setName("ColorSensor");
+
+        // the sensor is configured over I2C when it is created, which can take a while
+        readiness = StartupOrchestrator.getInstance().run(
+            "Color sensor", () -> {
+                colorSensor = new ColorSensorV3(I2C.Port.kOnboard);
+                sampler.startPeriodic(SAMPLE_PERIOD);
+            });
+    }
+
+    @Override
+    public CompletableFuture<Void> getReadiness() {
+        return readiness;
+    }
+
+    // runs on the sampler thread
+    private void sample() {
+        ColorSensorV3.RawColor raw = colorSensor.getRawColor();
+        int rawProximity = colorSensor.getProximity();
+
+        // normalized the same way as ColorSensorV3.getColor()
+        double magnitude = raw.red + raw.green + raw.blue;
+        double r = magnitude == 0 ? 0 : raw.red / magnitude;
+        double g = magnitude == 0 ? 0 : raw.green / magnitude;
+        double b = magnitude == 0 ? 0 : raw.blue / magnitude;
 
-        blueTarget = new Color(BLUE_TARGET_RED, BLUE_TARGET_GREEN, BLUE_TARGET_BLUE);
-        redTarget = new Color(RED_TARGET_RED, RED_TARGET_GREEN, RED_TARGET_BLUE);
-        noTarget = new Color(NO_TARGET_RED, NO_TARGET_GREEN, NO_TARGET_BLUE);
+        // picks the closest target, no ColorMatchResults are made
+        double blueDistance = distanceSquared(r, g, b, BLUE_TARGET_RED, BLUE_TARGET_GREEN, BLUE_TARGET_BLUE);
+        double redDistance = distanceSquared(r, g, b, RED_TARGET_RED, RED_TARGET_GREEN, RED_TARGET_BLUE);
+        double noDistance = distanceSquared(r, g, b, NO_TARGET_RED, NO_TARGET_GREEN, NO_TARGET_BLUE);
+
+        BallColor match = BallColor.BLUE;
+        double closest = blueDistance;
+        if (redDistance < closest) {
+            match = BallColor.RED;
+            closest = redDistance;
+        }
+        if (noDistance < closest) {
+            match = BallColor.NONE;
+            closest = noDistance;
+        }
 
-        colorMatcher.addColorMatch(blueTarget);
-        colorMatcher.addColorMatch(redTarget);
-        colorMatcher.addColorMatch(noTarget);
+        reading = new Reading(r, g, b, raw.ir, rawProximity, Math.sqrt(closest), Timer.getFPGATimestamp(), match);
+    }
+
+    private static double distanceSquared(
+        double r, double g, double b, double targetR, double targetG, double targetB) {
+        double dr = r - targetR;
+        double dg = g - targetG;
+        double db = b - targetB;
+        return dr * dr + dg * dg + db * db;
+    }
+
+    /**
+     * Gets the latest reading, every value in it was read at the same time.
+     *
+     * @return the reading
+     */
+    public Reading getReading() {
+        return reading;
     }
 
     /**
@@ -56,7 +128,7 @@ public class ColorSensor implements Sendable {
      * @return IR the raw infrared value detected by the sensor
      */
     public double getIR() {
-        return colorSensor.getIR();
+        return reading.ir;
     }
 
     /**
@@ -65,7 +137,7 @@ public class ColorSensor implements Sendable {
      * @return proximity the raw proximity value detected by the sensor
      */
     public double getProximity() {
-        return colorSensor.getProximity();
+        return reading.proximity;
     }
 
     /**
@@ -74,7 +146,7 @@ public class ColorSensor implements Sendable {
      * @return red the red value detected by the sensor
      */
     public double getRed() {
-        return colorSensor.getColor().red;
+        return reading.red;
     }
 
     /**
@@ -83,7 +155,7 @@ public class ColorSensor implements Sendable {
      * @return green the green value detected by the sensor
      */
     public double getGreen() {
-        return colorSensor.getColor().green;
+        return reading.green;
     }
 
     /**
@@ -92,34 +164,16 @@ public class ColorSensor implements Sendable {
      * @return blue the blue value detected by the sensor
      */
     public double getBlue() {
-        return colorSensor.getColor().blue;
+        return reading.blue;
     }
 
     /**
-     * Returns the ColorMatchResult containing the sensor's data.
-     * This is probably not what you want to use.
+     * Returns the color detected.
      *
-     * @return colorMatch the ColorMatchResult containing the sensor's data.
+     * @return the closest color, or UNKNOWN if the sensor hasn't been read
      */
-    public ColorMatchResult getColorMatch() {
-        return colorMatcher.matchClosestColor(colorSensor.getColor());
-    }
-
-    /**
-     * Returns the name of the color detected.
-     *
-     * @return color_name the name of the color detected
-     */
-    public String getColorString() {
-        if (getColorMatch().color == blueTarget) {
-            return "Blue";
-        } else if (getColorMatch().color == redTarget) {
-            return "Red";
-        } else if (getColorMatch().color == noTarget) {
-            return "NoTarget";
-        } else {
-            return "Unknown";
-        }
+    public BallColor getBallColor() {
+        return reading.color;
     }
 
     /**
@@ -129,9 +183,17 @@ public class ColorSensor implements Sendable {
      * @return confidence the level of confidence in the color selection
      */
     public double getConfidence() {
-        return 1 - getColorMatch().confidence;
+        return reading.getConfidence();
     }
 
+    /**
+     * Gets when the latest reading was taken.
+     *
+     * @return the FPGA time in seconds, or 0 if the sensor hasn't been read
+     */
+    public double getTimestamp() {
+        return reading.timestamp;
+    }
 
     @Override
     public void initSendable(SendableBuilder builder) {
@@ -139,9 +201,84 @@ public class ColorSensor implements Sendable {
         builder.addDoubleProperty("red", this::getRed, null);
         builder.addDoubleProperty("green", this::getGreen, null);
         builder.addDoubleProperty("blue", this::getBlue, null);
-        builder.addStringProperty("detected_color", this::getColorString, null);
+        builder.addStringProperty("detected_color", () -> getBallColor().name(), null);
         builder.addDoubleProperty("confidence", this::getConfidence, null);
         builder.addDoubleProperty("infrared", this::getIR, null);
         builder.addDoubleProperty("proximity", this::getProximity, null);
     }
+
+    /**
+     * One reading from the sensor.
+     * Readings are immutable, so the values never come from different reads.
+     */
+    public static final class Reading {
+        // what the sensor reports before it has been read
+        private static final Reading NONE = new Reading(0, 0, 0, 0, 0, 1, 0, BallColor.UNKNOWN);
+
+        private final double red;
+        private final double green;
+        private final double blue;
+        private final double ir;
+        private final double proximity;
+        // from the closest target color
+        private final double distance;
+        private final double timestamp;
+        private final BallColor color;
+
+        private Reading(
+            double red,
+            double green,
+            double blue,
+            double ir,
+            double proximity,
+            double distance,
+            double timestamp,
+            BallColor color) {
+            this.red = red;
+            this.green = green;
+            this.blue = blue;
+            this.ir = ir;
+            this.proximity = proximity;
+            this.distance = distance;
+            this.timestamp = timestamp;
+            this.color = color;
+        }
+
+        public double getRed() {
+            return red;
+        }
+
+        public double getGreen() {
+            return green;
+        }
+
+        public double getBlue() {
+            return blue;
+        }
+
+        public double getIR() {
+            return ir;
+        }
+
+        public double getProximity() {
+            return proximity;
+        }
+
+        public BallColor getBallColor() {
+            return color;
+        }
+
+        public double getConfidence() {
+            return 1 - distance;
+        }
+
+        /**
+         * Gets when the reading was taken.
+         *
+         * @return the FPGA time in seconds, or 0 if the sensor hasn't been read
+         */
+        public double getTimestamp() {
+            return timestamp;
+        }
+    }
 }
@@ -5,6 +5,7 @@ import edu.wpi.first.wpilibj.AddressableLEDBuffer;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.devices.LEDs.LEDRange.Atomic;
 import frc.robot.utilities.lists.Ports;
+import frc.robot.utilities.perf.LoopProfiler;
 import java.util.HashMap;
 import java.util.UUID;
 
@@ -23,6 +24,9 @@ public class LEDs extends SubsystemBase {
 
     private int loop;
 
+    private final LoopProfiler.Section periodicSection =
+        LoopProfiler.getInstance().section("LEDs.periodic()");
+
     /**
      * Gets the LED instance using the singleton pattern.
      *
@@ -123,6 +127,7 @@ public class LEDs extends SubsystemBase {
 
     @Override
     public void periodic() {
+        periodicSection.start();
         loop++;
 
         // Reassigns call if they have been modified
@@ -137,5 +142,6 @@ public class LEDs extends SubsystemBase {
         }
 
         applyChanges();
+        periodicSection.stop();
     }
 }
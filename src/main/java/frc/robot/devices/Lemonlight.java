@@ -1,19 +1,29 @@
 package frc.robot.devices;
 
+import edu.wpi.first.networktables.EntryListenerFlags;
+import edu.wpi.first.networktables.EntryNotification;
 import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.networktables.NetworkTableEntry;
 import edu.wpi.first.networktables.NetworkTableInstance;
 import edu.wpi.first.util.sendable.Sendable;
 import edu.wpi.first.util.sendable.SendableBuilder;
-import frc.robot.utilities.CustomVisionData;
-import java.util.ArrayList;
-import java.util.Arrays;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.utilities.TargetFrame;
+import java.nio.ByteBuffer;
 
 /**
  * Device driver for the limelight.
+ * Results are assembled into an immutable {@link TargetFrame} by a NetworkTables listener
+ * whenever the camera publishes.
+ *
+ * <p>PhotonVision sends each result as one value, so its frames always come from one image.
+ * The limelight sends each value on its own, only when it changes. Its values are collected
+ * into a batch, and the batch becomes a frame once nothing has changed for {@link #BATCH_GAP}.
+ * That relies on the limelight sending all of an image's values together, which it does, but
+ * it is timing rather than a guarantee.
  */
 public class Lemonlight implements Sendable {
-    private final NetworkTableEntry tv, tx, ty, ta, ledMode, camMode, pipeline, llpython;
+    private final NetworkTableEntry ledMode, camMode, pipeline;
     private final boolean forBall;
 
     // VALUES SHOULD BE IN CM and DEGREES
@@ -27,6 +37,32 @@ public class Lemonlight implements Sendable {
             BALL_MOUNT_ANGLE_X = 0.0,
             BALL_TARGET_HEIGHT = 12.065;
 
+    // the limelight's reported latency doesn't include capturing the image (ms)
+    private static final double LIMELIGHT_CAPTURE_LATENCY = 11;
+
+    // the limelight's values from one image arrive within this of each other, and images are
+    // at least 11ms apart (s)
+    public static final double BATCH_GAP = 0.003;
+
+    // photonvision's serialized result starts with the latency and the number of targets
+    private static final int PHOTON_HEADER_BYTES = Double.BYTES + 1;
+    // each target starts with its yaw, pitch and area
+    private static final int PHOTON_TARGET_BYTES = 3 * Double.BYTES;
+    // the whole target record depends on the photonlib version, so its size is taken from the packet
+
+    private long sequence = 0;
+
+    // the limelight values collected so far, kept between batches since unchanged values aren't sent
+    private volatile boolean batchPending = false;
+    private double batchTime = 0;
+    private boolean batchHasTarget = false;
+    private double batchX = 0;
+    private double batchY = 0;
+    private double batchArea = 0;
+    private double batchLatency = 0;
+
+    private volatile TargetFrame frame = TargetFrame.NONE;
+
     /**
      * Creates a new limelight object.
      *
@@ -44,28 +80,150 @@ public class Lemonlight implements Sendable {
 
         this.forBall = forBall;
 
+        ledMode = limelight.getEntry("ledMode");
+        camMode = limelight.getEntry("camMode");
+
+        pipeline = limelight.getEntry("pipeline");
+
+        int flags = EntryListenerFlags.kNew | EntryListenerFlags.kUpdate;
         if (!photonVision) {
-            tv = limelight.getEntry("tv");
-            tx = limelight.getEntry("tx");
-            ty = limelight.getEntry("ty");
-            ta = limelight.getEntry("ta");
+            // the whole table, since any value that didn't change isn't sent again
+            limelight.addEntryListener((table, key, entry, value, flag) -> {
+                if (isFrameKey(key)) {
+                    receiveLimelightValue(key, value.getDouble());
+                }
+            }, flags);
         } else {
-            tv = limelight.getEntry("hasTarget");
-            tx = limelight.getEntry("targetYaw");
-            ty = limelight.getEntry("targetPitch");
-            ta = limelight.getEntry("targetArea");
+            // photonvision publishes the whole result as one value, so it's the only way to get a
+            // frame without mixing entries
+            limelight.getEntry("rawBytes").addListener(this::receivePhotonFrame, flags);
         }
+    }
 
-        if (forBall) {
-            llpython = limelight.getEntry("llpython");
-        } else {
-            llpython = null;
+    private static boolean isFrameKey(String key) {
+        return key.equals("tv") || key.equals("tx") || key.equals("ty") || key.equals("ta") || key.equals("tl");
+    }
+
+    // runs on the NetworkTables listener thread
+    private synchronized void receiveLimelightValue(String key, double value) {
+        double now = Timer.getFPGATimestamp();
+        // a gap means this value is from the next image
+        finishBatch(now);
+
+        switch (key) {
+            case "tv":
+                batchHasTarget = value == 1;
+                break;
+            case "tx":
+                batchX = value;
+                break;
+            case "ty":
+                batchY = value;
+                break;
+            case "ta":
+                batchArea = value;
+                break;
+            default:
+                batchLatency = value + LIMELIGHT_CAPTURE_LATENCY;
+                break;
         }
-        ledMode = limelight.getEntry("ledMode");
-        camMode = limelight.getEntry("camMode");
 
-        pipeline = limelight.getEntry("pipeline");
+        batchPending = true;
+        batchTime = now;
+    }
 
+    // publishes the batch if nothing has been added to it for BATCH_GAP
+    private synchronized void finishBatch(double now) {
+        if (batchPending && now - batchTime > BATCH_GAP) {
+            batchPending = false;
+            publish(batchHasTarget, batchX, batchY, batchArea, batchLatency, batchTime);
+        }
+    }
+
+    // runs on the NetworkTables listener thread
+    private void receivePhotonFrame(EntryNotification notification) {
+        byte[] raw = notification.value.getRaw();
+        if (raw == null || raw.length < PHOTON_HEADER_BYTES) {
+            return;
+        }
+
+        // big endian, the best target is first
+        ByteBuffer packet = ByteBuffer.wrap(raw);
+        double latency = packet.getDouble();
+        int targets = packet.get() & 0xff;
+
+        double now = Timer.getFPGATimestamp();
+        if (targets == 0 || packet.remaining() < PHOTON_TARGET_BYTES) {
+            publish(false, 0, 0, 0, latency, now);
+            return;
+        }
+
+        // the records fill the rest of the packet, if they don't split evenly only the best is trusted
+        int recordBytes = packet.remaining() / targets;
+        if (packet.remaining() % targets != 0 || recordBytes < PHOTON_TARGET_BYTES) {
+            targets = 1;
+            recordBytes = PHOTON_TARGET_BYTES;
+        }
+
+        double[] yaws = new double[targets];
+        double[] pitches = new double[targets];
+        double area = 0;
+        int start = packet.position();
+        for (int i = 0; i < targets; i++) {
+            packet.position(start + i * recordBytes);
+            yaws[i] = packet.getDouble();
+            pitches[i] = packet.getDouble();
+            if (i == 0) {
+                area = packet.getDouble();
+            }
+        }
+
+        publish(latency, now, area, yaws, pitches);
+    }
+
+    private synchronized void publish(
+        double latency, double receivedTime, double bestArea, double[] targetYaws, double[] targetPitches) {
+        frame = new TargetFrame(
+            ++sequence,
+            true,
+            targetYaws[0],
+            targetPitches[0],
+            bestArea,
+            latency,
+            receivedTime,
+            targetYaws,
+            targetPitches);
+    }
+
+    private synchronized void publish(
+        boolean hasTarget,
+        double horizontalOffset,
+        double verticalOffset,
+        double area,
+        double latency,
+        double receivedTime) {
+        frame = new TargetFrame(
+            ++sequence,
+            hasTarget,
+            horizontalOffset,
+            verticalOffset,
+            area,
+            latency,
+            receivedTime);
+    }
+
+    /**
+     * Gets the latest frame from the camera.
+     * Read this once and use its values, rather than calling the single value getters.
+     *
+     * @return the latest frame, {@link TargetFrame#NONE} if nothing has been received
+     */
+    public TargetFrame getFrame() {
+        // the last limelight batch is only finished by the next value, or by being read
+        if (batchPending) {
+            finishBatch(Timer.getFPGATimestamp());
+        }
+        return frame;
     }
 
     /**
@@ -131,7 +289,7 @@ public class Lemonlight implements Sendable {
      * @return if limelight has a target
      */
     public boolean hasTarget() {
-        return tv.getDouble(0) == 1;
+        return getFrame().hasTarget();
     }
 
     /**
@@ -140,7 +298,7 @@ public class Lemonlight implements Sendable {
      * @return the horizontal offset
      */
     public double getHorizontalOffset() {
-        return tx.getDouble(0);
+        return getFrame().getHorizontalOffset();
     }
 
     /**
@@ -149,7 +307,7 @@ public class Lemonlight implements Sendable {
      * @return the vertical offset
      */
     public double getVerticalOffset() {
-        return ty.getDouble(0);
+        return getFrame().getVerticalOffset();
     }
 
     /**
@@ -158,7 +316,16 @@ public class Lemonlight implements Sendable {
      * @return the percentage of area
      */
     public double getAreaPercentage() {
-        return ta.getDouble(0);
+        return getFrame().getArea();
+    }
+
+    /**
+     * Gets how old the current results are when they are published.
+     *
+     * @return the latency in ms
+     */
+    public double getLatency() {
+        return getFrame().getLatency();
     }
 
     /**
@@ -185,84 +352,6 @@ public class Lemonlight implements Sendable {
         return targetDistance * Math.tan((targetAngle + mountAngle) * (Math.PI / 180)) * 0.393701;
     }
 
-    /**
-     * Returns the custom vision data output by the limelight when in python mode.
-     * In the limelight you output to the array labeled llpython.
-     *
-     * @return custom vision data as an ArrayList of Numbers
-     */
-    public ArrayList<Number> getCustomVisionDataNumbers() {
-        if (!forBall) {
-            return new ArrayList<>();
-        }
-        // For some reason I get errors if I put {} straight into getNumberArray.
-        Number[] defaultArray = {};
-        return new ArrayList<>(Arrays.asList(llpython.getNumberArray(defaultArray)));
-    }
-
-    /**
-     * Returns the custom vision data output by the limelight when in python mode.
-     * In the limelight you output to the array labeled llpython.
-     *
-     * @return custom vision data as an ArrayList of Integers
-     */
-    public ArrayList<Integer> getCustomVisionData() {
-        if (!forBall) {
-            return new ArrayList<>();
-        }
-        ArrayList<Number> customVisionData = getCustomVisionDataNumbers();
-
-        ArrayList<Integer> output = new ArrayList<>();
-
-        customVisionData.forEach(ele -> output.add(ele.intValue()));
-
-        return output;
-    }
-
-    /**
-     * Parses the custom vision data and wraps it into a data class.
-     *
-     * @param data The custom vision data.
-     * @return The custom vision data wrapped in a data class.
-     */
-    public static ArrayList<CustomVisionData> parseVisionData(ArrayList<Integer> data) {
-        ArrayList<CustomVisionData> out = new ArrayList<>();
-
-        data.forEach((value) -> {
-            out.add(new CustomVisionData(
-                value,
-                    BALL_MOUNT_ANGLE, BALL_MOUNT_HEIGHT, BALL_MOUNT_ANGLE_X, BALL_TARGET_HEIGHT));
-        });
-
-        return out;
-    }
-
-    /**
-     * Dumb method needed for telemetry.
-     *
-     * @return Data in a primitive double array.
-     */
-    private double[] getCustomVisionDataForTelemetry() {
-        if (!forBall) {
-            return new double[0];
-        }
-        ArrayList<Integer> data = getCustomVisionData();
-        double[] out = new double[data.size()];
-
-        for (int i = 0; i < data.size(); i++) {
-            out[i] = data.get(i);
-        }
-
-        return out;
-    }
-
-    private double getFirstInstanceCustomVisionData() {
-        if (!forBall) {
-            return 0;
-        }
-        return getCustomVisionDataForTelemetry()[0];
-    }
-
     @Override
     public void initSendable(SendableBuilder builder) {
         builder.setSmartDashboardType("Lemonlight");
@@ -273,9 +362,7 @@ public class Lemonlight implements Sendable {
         }, null);
         builder.addBooleanProperty("hasTarget", this::hasTarget, null);
         if (forBall) {
-            builder.addDoubleArrayProperty(
-                    "customDataArray", this::getCustomVisionDataForTelemetry, null);
-            builder.addDoubleProperty("customData", this::getFirstInstanceCustomVisionData, null);
+            builder.addDoubleProperty("targetCount", () -> getFrame().getTargetCount(), null);
         }
     }
 }
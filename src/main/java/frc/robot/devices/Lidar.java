@@ -1,17 +1,46 @@
 package frc.robot.devices;
 
+import edu.wpi.first.wpilibj.Preferences;
+import frc.robot.utilities.Readiness;
+
 /**
  * Interface for Lidar sensors on the robot.
  * There are both LidarV3 and V4 on the robot.
+ * Lidars are brought up in the background and read 0 until they are ready.
  */
-public interface Lidar {
+public interface Lidar extends Readiness {
     // TODO - set LIDAR_MOUNT_ANGLE
     float LIDAR_MOUNT_ANGLE = 0;
 
+    // the preference which picks the lidar, either "V3" or "V4"
+    String TYPE_PREFERENCE = "LidarType";
+
+    /**
+     * Creates whichever lidar is picked in the preferences, so the lidar can be swapped
+     * without changing code. Defaults to the V4.
+     *
+     * @return the new lidar
+     */
+    static Lidar fromPreferences() {
+        Preferences.initString(TYPE_PREFERENCE, "V4");
+
+        if (Preferences.getString(TYPE_PREFERENCE, "V4").equalsIgnoreCase("V3")) {
+            return new LidarV3();
+        }
+        return new LidarV4();
+    }
+
     int getDistance();
 
     int getAverageDistance();
 
+    /**
+     * Gets when the distance from {@link #getDistance()} was measured.
+     *
+     * @return the FPGA time in seconds
+     */
+    double getTimestamp();
+
     /**
      * Compensated the lidar distance for the lidar mount angle in inches.
      *
@@ -4,70 +4,137 @@ import edu.wpi.first.hal.I2CJNI;
 import edu.wpi.first.util.sendable.Sendable;
 import edu.wpi.first.util.sendable.SendableBuilder;
 import edu.wpi.first.wpilibj.I2C.Port;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.RobotController;
 import frc.robot.utilities.RollingAverage;
+import frc.robot.utilities.StartupOrchestrator;
+import frc.robot.utilities.stats.WindowedMedian;
 import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Device to manage the Lidar3.
+ * The lidar runs in continuous mode and is read by its own notifier thread.
+ * Each reading is packed with its timestamp into one long, so the getters are a single
+ * atomic read and never touch I2C.
  */
 public class LidarV3 implements Lidar, Sendable {
 
-    private final RollingAverage rollingAverage;
+    public static final double DEFAULT_SAMPLE_PERIOD = 0.01;
+
+    // readings outside of these are thrown out (cm)
+    public static final int
+        MIN_DISTANCE = 1,
+        MAX_DISTANCE = 4000;
 
-    private boolean hasStartedMeasuring;
+    // the low bits of a sample hold the distance, the rest hold the time in microseconds
+    private static final int DISTANCE_BITS = 16;
+    private static final long DISTANCE_MASK = (1L << DISTANCE_BITS) - 1;
 
     private static final byte DEVICE_ADDRESS = 0x62;
 
     private final byte port;
 
+    // only used while holding the lock on this lidar
     private final ByteBuffer byteBuffer = ByteBuffer.allocateDirect(2);
 
+    private final double samplePeriod;
+    private final Notifier sampler;
+
+    // only touched by the sampler thread
+    private final RollingAverage rollingAverage;
+    // single bad readings are thrown out before they reach the average
+    private final WindowedMedian median = new WindowedMedian(3);
+
+    private final AtomicLong latest = new AtomicLong(0);
+    private volatile double average = 0;
+    private volatile int discarded = 0;
+
+    private final CompletableFuture<Void> readiness;
+
     /**
      * Constructor to create a LidarV3.
+     *
+     * @param samplePeriod the time between readings in seconds
      */
-    public LidarV3() {
+    public LidarV3(double samplePeriod) {
+        this.samplePeriod = samplePeriod;
 
         port = (byte) Port.kOnboard.value;
         I2CJNI.i2CInitialize(port);
 
         rollingAverage = new RollingAverage(50, true);
 
-        hasStartedMeasuring = false;
+        sampler = new Notifier(this::sample);
+        sampler.setName("LidarV3");
 
-        startMeasuring();
+        readiness = StartupOrchestrator.getInstance().run("Lidar", this::startMeasuring);
     }
 
     /**
-     * Tells the lidar to start taking measurements. Must be called before getting measurements
+     * Constructor to create a LidarV3 read every 10 ms.
+     */
+    public LidarV3() {
+        this(DEFAULT_SAMPLE_PERIOD);
+    }
+
+    @Override
+    public CompletableFuture<Void> getReadiness() {
+        return readiness;
+    }
+
+    /**
+     * Puts the lidar in continuous mode and starts reading it.
      */
     public void startMeasuring() {
         writeRegister(0x04, 0x08 | 32); // default plus bit 5
-        writeRegister(0x11, 0xff);
+        writeRegister(0x11, 0xff); // repeats measurements forever
         writeRegister(0x00, 0x04);
+
+        sampler.startPeriodic(samplePeriod);
     }
 
     /**
      * Tells the lidar to stop taking measurements.
      */
     public void stopMeasuring() {
+        sampler.stop();
         writeRegister(0x11, 0x00);
     }
 
+    // runs on the sampler thread
+    private void sample() {
+        int distance = readDistance();
+
+        if (distance < MIN_DISTANCE || distance > MAX_DISTANCE) {
+            discarded++;
+            return;
+        }
+
+        rollingAverage.update(median.add(distance));
+        average = rollingAverage.getAverage();
+        latest.set((RobotController.getFPGATime() << DISTANCE_BITS) | distance);
+    }
+
     /**
-     * Gets the current distance measurement from the lidar.
+     * Gets the most recent distance measurement from the lidar.
      *
-     * @return the distance in cm
+     * @return the distance in cm, or 0 if nothing has been read yet
      */
     @Override
     public int getDistance() {
-        if (!hasStartedMeasuring) {
-            startMeasuring();
-            hasStartedMeasuring = true;
-        }
-        short value = readShort(0x8f);
-        rollingAverage.update(value);
+        return (int) (latest.get() & DISTANCE_MASK);
+    }
 
-        return value;
+    /**
+     * Gets when the most recent distance was measured.
+     *
+     * @return the FPGA time in seconds, or 0 if nothing has been read yet
+     */
+    @Override
+    public double getTimestamp() {
+        return (latest.get() >>> DISTANCE_BITS) / 1e6;
     }
 
     /**
@@ -77,24 +144,35 @@ public class LidarV3 implements Lidar, Sendable {
      */
     @Override
     public int getAverageDistance() {
-        getDistance();
-        return (int) rollingAverage.getAverage();
+        return (int) average;
+    }
+
+    /**
+     * Gets the number of readings thrown out for being out of range.
+     *
+     * @return the number of discarded readings
+     */
+    public int getDiscarded() {
+        return discarded;
     }
 
     // scary
-    private int writeRegister(int address, int value) {
+    private synchronized int writeRegister(int address, int value) {
         byteBuffer.put(0, (byte) address);
         byteBuffer.put(1, (byte) value);
 
         return I2CJNI.i2CWrite(port, DEVICE_ADDRESS, byteBuffer, (byte) 2);
     }
 
-    // I don't understand how this works
-    private short readShort(int address) {
-        byteBuffer.put(0, (byte) address);
-        I2CJNI.i2CWrite(port, DEVICE_ADDRESS, byteBuffer, (byte) 1);
-        I2CJNI.i2CRead(port, DEVICE_ADDRESS, byteBuffer, (byte) 2);
-        return byteBuffer.getShort(0);
+    // reads the 2 byte distance, the high bit of the address makes the lidar read both bytes
+    private synchronized int readDistance() {
+        byteBuffer.put(0, (byte) 0x8f);
+        if (I2CJNI.i2CWrite(port, DEVICE_ADDRESS, byteBuffer, (byte) 1) < 0
+            || I2CJNI.i2CRead(port, DEVICE_ADDRESS, byteBuffer, (byte) 2) < 0) {
+            return -1;
+        }
+
+        return byteBuffer.getShort(0) & 0xffff;
     }
 
     @Override
@@ -102,5 +180,7 @@ public class LidarV3 implements Lidar, Sendable {
         builder.setSmartDashboardType("LidarV3");
         builder.addDoubleProperty("avgDistance", this::getAverageDistance, null);
         builder.addDoubleProperty("distance", this::getDistance, null);
+        builder.addDoubleProperty("timestamp", this::getTimestamp, null);
+        builder.addDoubleProperty("discarded", this::getDiscarded, null);
     }
 }
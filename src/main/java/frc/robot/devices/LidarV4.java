@@ -4,18 +4,48 @@ import edu.wpi.first.util.sendable.Sendable;
 import edu.wpi.first.util.sendable.SendableBuilder;
 import edu.wpi.first.wpilibj.I2C;
 import edu.wpi.first.wpilibj.I2C.Port;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.Timer;
 import frc.robot.utilities.RollingAverage;
+import frc.robot.utilities.StartupOrchestrator;
+import frc.robot.utilities.stats.WindowedMedian;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Class for using the lidar v4.
+ * The lidar is read by its own notifier thread into a ring buffer of timestamped samples,
+ * so the getters never touch I2C and never block.
  */
 public class LidarV4 implements Lidar, Sendable {
 
+    // the lidar measures at about 100hz in single shot mode
+    public static final double SAMPLE_PERIOD = 0.01;
+
+    // must be a power of two
+    public static final int HISTORY_SIZE = 64;
+
     @SuppressWarnings("CheckStyle")
     private final I2C portI2C;
-    private int value;
 
+    private final Notifier sampler;
+
+    // only touched by the sampler thread
     private final RollingAverage rollingAverage;
+    // single bad readings are thrown out before they reach the average
+    private final WindowedMedian median = new WindowedMedian(3);
+    private final byte[] status = new byte[1];
+    private final byte[] low = new byte[1];
+    private final byte[] high = new byte[1];
+    private int value;
+
+    // samples written by the sampler thread, the newest is head - 1
+    private final int[] distances = new int[HISTORY_SIZE];
+    private final double[] timestamps = new double[HISTORY_SIZE];
+    private volatile long head = 0;
+    private volatile double average = 0;
+
+    private final CompletableFuture<Void> readiness;
 
     /**
      * constructor.
@@ -27,74 +57,167 @@ public class LidarV4 implements Lidar, Sendable {
         value = 0;
 
         rollingAverage = new RollingAverage(10, true);
+
+        sampler = new Notifier(this::sample);
+        sampler.setName("LidarV4");
+
+        readiness = StartupOrchestrator.getInstance().run("Lidar", this::bringUp);
     }
 
     public LidarV4() {
         this(0x62);
     }
 
+    // checks the lidar is there, starts the first measurement and then the sampler.
+    // a missing lidar throws before the sampler starts, so it never polls the shared I2C bus
+    private void bringUp() {
+        if (portI2C.addressOnly()) {
+            throw new IllegalStateException("lidar did not respond on I2C");
+        }
+
+        portI2C.write(0x00, 0x04);
+        sampler.startPeriodic(SAMPLE_PERIOD);
+    }
+
+    @Override
+    public CompletableFuture<Void> getReadiness() {
+        return readiness;
+    }
+
+    // runs on the sampler thread
+    private void sample() {
+        if (readDistance()) {
+            rollingAverage.update(median.add(value));
+            average = rollingAverage.getAverage();
+            publish(value, Timer.getFPGATimestamp());
+        }
+    }
+
     /**
      * reads the current distance from the lidar if one is available.
+     *
+     * @return true if a new, valid measurement was read
      */
-    private void readDistance() {
-        byte[] status = new byte[1];
-
+    private boolean readDistance() {
         // checks if there is a valid measurement
         portI2C.read(0x01, 1, status);
 
-        if ((status[0] & 0x01) == 0) {
-            byte[] low = new byte[1];
-            byte[] high = new byte[1];
-
-            // reads distance from lidar
-            portI2C.read(0x10, 1, low);
-            portI2C.read(0x11, 1, high);
+        if ((status[0] & 0x01) != 0) {
+            return false;
+        }
 
-            int out = high[0];
+        // reads distance from lidar
+        portI2C.read(0x10, 1, low);
+        portI2C.read(0x11, 1, high);
 
-            // fixes java using signed bytes
-            if (out < 0) {
-                out = ((high[0] & 0b01111111) + 128);
-            }
+        // fixes java using signed bytes
+        int out = ((high[0] & 0xff) << 8) + (low[0] & 0xff);
 
-            out = (out << 8);
-            int out2 = low[0];
+        // tells lidar to take another measurement
+        portI2C.write(0x00, 0x04);
 
-            if (out2 < 0) {
-                out2 = ((low[0] & 0b01111111) + 128);
-            }
+        // prevent bad values, which aren't published so the last good one isn't repeated
+        if (out >= 1000) {
+            return false;
+        }
 
-            out = out + out2;
+        value = out;
+        return true;
+    }
 
-            // tells lidar to take another measurement
-            portI2C.write(0x00, 0x04);
+    private void publish(int distance, double timestamp) {
+        long index = head;
+        int slot = (int) (index & (HISTORY_SIZE - 1));
 
-            // prevent bad values
-            if (out < 1000) {
-                value = out;
-            }
-        }
+        distances[slot] = distance;
+        timestamps[slot] = timestamp;
 
-        rollingAverage.update(value);
+        // the volatile write makes the slot visible before the new head
+        head = index + 1;
     }
 
     /**
      * Gets the most recent distance.
      *
-     * @return the distance in cm
+     * @return the distance in cm, or 0 if nothing has been read yet
      */
     @Override
     public int getDistance() {
-        readDistance();
-        return value;
+        while (true) {
+            long newest = head - 1;
+            if (newest < 0) {
+                return 0;
+            }
+
+            int distance = distances[(int) (newest & (HISTORY_SIZE - 1))];
+            if (stillValid(newest)) {
+                return distance;
+            }
+        }
+    }
+
+    /**
+     * Gets when the most recent distance was measured.
+     *
+     * @return the FPGA time in seconds, or 0 if nothing has been read yet
+     */
+    @Override
+    public double getTimestamp() {
+        while (true) {
+            long newest = head - 1;
+            if (newest < 0) {
+                return 0;
+            }
+
+            double timestamp = timestamps[(int) (newest & (HISTORY_SIZE - 1))];
+            if (stillValid(newest)) {
+                return timestamp;
+            }
+        }
+    }
+
+    /**
+     * Gets the distance measured at or just before a time.
+     *
+     * @param timestamp the FPGA time in seconds
+     * @return the distance in cm, or -1 if the time is older than the history
+     */
+    public int getDistanceAt(double timestamp) {
+        while (true) {
+            long newest = head - 1;
+            long oldest = Math.max(0, newest - HISTORY_SIZE + 2);
+
+            int distance = -1;
+            long index = newest;
+            for (; index >= oldest; index--) {
+                int slot = (int) (index & (HISTORY_SIZE - 1));
+                if (timestamps[slot] <= timestamp) {
+                    distance = distances[slot];
+                    break;
+                }
+            }
+
+            if (index < oldest || stillValid(index)) {
+                return distance;
+            }
+        }
+    }
+
+    // true if the sampler hasn't overwritten the sample since it was read
+    private boolean stillValid(long index) {
+        VarHandle.loadLoadFence();
+        return head - index < HISTORY_SIZE;
     }
 
     /**
      * Changes the i2c id of the v4.
+     * This stops the sampler, the lidar has to be recreated with the new id.
      *
      * @param id the id to change to
      */
     public void changeId(int id) {
+        sampler.stop();
+
         // enables flash
         portI2C.write(0xEA, 0x11);
 
@@ -122,8 +245,7 @@ public class LidarV4 implements Lidar, Sendable {
      */
     @Override
     public int getAverageDistance() {
-        readDistance();
-        return (int) rollingAverage.getAverage();
+        return (int) average;
     }
 
     @Override
@@ -131,5 +253,6 @@ public class LidarV4 implements Lidar, Sendable {
         builder.setSmartDashboardType("LidarV4");
         builder.addDoubleProperty("avgDistance", this::getAverageDistance, null);
         builder.addDoubleProperty("distance", this::getDistance, null);
+        builder.addDoubleProperty("timestamp", this::getTimestamp, null);
     }
 }
@@ -11,6 +11,7 @@ import edu.wpi.first.networktables.NetworkTableEntry;
 import edu.wpi.first.wpilibj.util.Color8Bit;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.utilities.lists.Colors;
+import frc.robot.utilities.perf.LoopProfiler;
 import java.util.HashMap;
 
 /**
@@ -23,6 +24,7 @@ public class StatusDisplayWidget extends SubsystemBase {
     private Color8Bit defaultColor;
     private final HashMap<String, StatusMessage> nameAndMessage;
     private boolean changed;
+    private final LoopProfiler.Section periodicSection;
 
     /**
      * Constructor.
@@ -36,6 +38,9 @@ public class StatusDisplayWidget extends SubsystemBase {
         changed = true;
         nameAndMessage = new HashMap<>();
         defaultColor = Colors.WHITE;
+
+        periodicSection = LoopProfiler.getInstance()
+            .section("StatusDisplayWidget(" + entry.getName() + ").periodic()");
     }
 
     /**
@@ -122,6 +127,8 @@ public class StatusDisplayWidget extends SubsystemBase {
     // sorts and displays the messages
     @Override
     public void periodic() {
+        periodicSection.start();
+
         if (changed) {
 
             // sorts through all messages and gets the one with the highest priority
@@ -140,6 +147,8 @@ public class StatusDisplayWidget extends SubsystemBase {
 
             changed = false;
         }
+
+        periodicSection.stop();
     }
 
     /**
@@ -0,0 +1,152 @@
+package frc.robot.subsystems;
+
+import edu.wpi.first.util.sendable.SendableBuilder;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.devices.Lemonlight;
+import frc.robot.utilities.BallDetections;
+import frc.robot.utilities.BallMap;
+import frc.robot.utilities.BallTracker;
+import frc.robot.utilities.PoseHistory;
+import frc.robot.utilities.TargetFrame;
+import frc.robot.utilities.perf.LoopProfiler;
+
+/**
+ * Tracks the balls seen by the ball detection camera.
+ * The camera runs PhotonVision, so the tracker is fed every target of each of its frames,
+ * timed by the frame's own latency, and matches them to tracks so two balls at a similar range
+ * keep their ids. The pipeline only finds our alliance's balls, so every target is taken to be
+ * our color.
+ * Commands read the tracker rather than the camera, so a ball keeps the same id from frame to frame.
+ * Every ball is also put on a field map through the pose the robot had when the image was taken,
+ * so balls are remembered after they leave the camera's view.
+ */
+public class BallDetection extends SubsystemBase {
+
+    // TODO - set these
+    public static final double
+        // where the camera is from the center of the robot, forwards (m)
+        CAMERA_FORWARD_OFFSET = 0.0,
+        // balls this close to the center of the robot are assumed picked up or pushed away (m)
+        CLEAR_RADIUS = 0.5;
+
+    private static final double INCHES_TO_METERS = 0.0254;
+
+    private final Lemonlight limelight;
+    private final Drivetrain drivetrain;
+
+    private final BallDetections detections = new BallDetections();
+    private final BallTracker tracker = new BallTracker();
+    private final BallMap map = new BallMap();
+
+    private final double[] pose = new double[5];
+
+    private long lastSequence = 0;
+
+    private final LoopProfiler.Section periodicSection =
+        LoopProfiler.getInstance().section("BallDetection.periodic()");
+
+    /**
+     * Creates the ball detection subsystem.
+     *
+     * @param limelight  the ball detection limelight
+     * @param drivetrain the drivetrain whose pose places balls on the map
+     */
+    public BallDetection(Lemonlight limelight, Drivetrain drivetrain) {
+        this.limelight = limelight;
+        this.drivetrain = drivetrain;
+    }
+
+    @Override
+    public void periodic() {
+        periodicSection.start();
+
+        double now = Timer.getFPGATimestamp();
+        TargetFrame frame = limelight.getFrame();
+
+        if (frame.getSequence() != lastSequence) {
+            lastSequence = frame.getSequence();
+            double captureTime = frame.getCaptureTime();
+
+            detections.decode(frame, !isTeamBlue());
+            tracker.update(detections, captureTime);
+
+            if (drivetrain.getPoseAt(captureTime, pose)) {
+                addToMap(captureTime);
+            }
+        }
+        // tracks coast forwards to now between frames
+        tracker.predict(now);
+
+        if (drivetrain.getPoseAt(now, pose)) {
+            map.clearAround(pose[PoseHistory.X], pose[PoseHistory.Y], CLEAR_RADIUS);
+        }
+
+        periodicSection.stop();
+    }
+
+    // the camera's right is clockwise from the robot's heading
+    private void addToMap(double time) {
+        double heading = pose[PoseHistory.HEADING];
+        double cos = Math.cos(heading);
+        double sin = Math.sin(heading);
+
+        for (int i = 0; i < detections.getCount(); i++) {
+            double forward = detections.yDistance[i] * INCHES_TO_METERS + CAMERA_FORWARD_OFFSET;
+            double right = detections.xDistance[i] * INCHES_TO_METERS;
+
+            map.add(
+                pose[PoseHistory.X] + forward * cos + right * sin,
+                pose[PoseHistory.Y] + forward * sin - right * cos,
+                detections.red[i],
+                time);
+        }
+    }
+
+    public BallTracker getTracker() {
+        return tracker;
+    }
+
+    public BallMap getMap() {
+        return map;
+    }
+
+    /**
+     * Finds the nearest remembered ball of our alliance's color.
+     *
+     * @param x the x position to search from in meters
+     * @param y the y position to search from in meters
+     * @return the ball's x and y in meters, or null if no ball is remembered.
+     *         The array is reused by the next call.
+     */
+    public double[] findRememberedBall(double x, double y) {
+        return map.findNearest(x, y, !isTeamBlue(), Timer.getFPGATimestamp());
+    }
+
+    private static boolean isTeamBlue() {
+        return DriverStation.getAlliance() != Alliance.Red;
+    }
+
+    /**
+     * Gets the closest confirmed track of our alliance's color.
+     *
+     * @return the slot of the track, or -1 if there isn't one
+     */
+    public int getBestTrack() {
+        return tracker.getBestTrack(isTeamBlue());
+    }
+
+    @Override
+    public void initSendable(SendableBuilder builder) {
+        builder.setSmartDashboardType("BallDetection");
+        builder.addDoubleProperty("tracks", tracker::getTrackCount, null);
+        builder.addDoubleProperty("detections", detections::getCount, null);
+        builder.addDoubleProperty("mappedBalls", () -> map.getBallCount(Timer.getFPGATimestamp()), null);
+        builder.addDoubleProperty("bestTrack", () -> {
+            int best = getBestTrack();
+            return best < 0 ? 0 : tracker.getId(best);
+        }, null);
+    }
+}
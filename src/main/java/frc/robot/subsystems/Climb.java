@@ -15,12 +15,21 @@ import edu.wpi.first.wpilibj2.command.Subsystem;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.utilities.Homeable;
 import frc.robot.utilities.RollingAverage;
+import frc.robot.utilities.CANBudget;
+import frc.robot.utilities.CANBudget.Role;
+import frc.robot.utilities.MotorOutput;
+import frc.robot.utilities.Readiness;
+import frc.robot.utilities.SensorSampler;
+import frc.robot.utilities.SparkMaxConfig;
+import frc.robot.utilities.SparkMaxConfigurator;
 import frc.robot.utilities.lists.Ports;
+import frc.robot.utilities.perf.LoopProfiler;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Subsystem for the Climb Subsystem.
  */
-public class Climb extends SubsystemBase {
+public class Climb extends SubsystemBase implements Readiness {
 
     private AHRS gyro;
     private DigitalInput leftClimbLimit;
@@ -29,6 +38,9 @@ public class Climb extends SubsystemBase {
     private double oldGyroAngle = 0;
     private RollingAverage climbDrivitiveAvrage = new RollingAverage(10, true);
 
+    private final LoopProfiler.Section periodicSection =
+            LoopProfiler.getInstance().section("Climb.periodic()");
+
     //TODO set these
     public static final double
             P = 0,
@@ -71,6 +83,11 @@ public class Climb extends SubsystemBase {
     private final SparkMaxPIDController leftPidController = leftMotor.getPIDController();
     private final SparkMaxPIDController rightPidController = rightMotor.getPIDController();
 
+    private final MotorOutput leftOutput = new MotorOutput(leftMotor, leftPidController);
+    private final MotorOutput rightOutput = new MotorOutput(rightMotor, rightPidController);
+
+    private final CompletableFuture<Void> readiness;
+
     // Encoders
     private final RelativeEncoder leftMotorEncoder = leftMotor.getEncoder();
     private final RelativeEncoder rightMotorEncoder = rightMotor.getEncoder();
@@ -82,28 +99,33 @@ public class Climb extends SubsystemBase {
      * 
      */
     public Climb(AHRS gyro) {
-        leftPidController.setP(P);
-        leftPidController.setI(I);
-        leftPidController.setD(D);
-        leftPidController.setFF(FF);
-        leftPidController.setIZone(IZ);
-        leftPidController.setOutputRange(-1.0, 1.0);
-
-        rightPidController.setP(P);
-        rightPidController.setI(I);
-        rightPidController.setD(D);
-        rightPidController.setFF(FF);
-        rightPidController.setIZone(IZ);
-        rightPidController.setOutputRange(-1.0, 1.0);
         this.gyro = gyro;
         //zeroEncoders();
-   
 
-        leftMotor.setInverted(true);
-        rightMotor.setInverted(true);
+        // homing reads the current, so everything is needed
+        CANBudget.getInstance().configure(leftMotor, Role.LEADER);
+        CANBudget.getInstance().configure(rightMotor, Role.LEADER);
+
+        readiness = CompletableFuture.allOf(
+            SparkMaxConfigurator.getInstance().configure(leftMotor, motorConfig()),
+            SparkMaxConfigurator.getInstance().configure(rightMotor, motorConfig()));
         CommandScheduler.getInstance().registerSubsystem(this);
     }
 
+    @Override
+    public CompletableFuture<Void> getReadiness() {
+        return readiness;
+    }
+
+    // both arms are set up the same
+    private static SparkMaxConfig motorConfig() {
+        return new SparkMaxConfig()
+            .inverted(true)
+            .pid(0, P, I, D)
+            .feedForward(0, FF, IZ)
+            .outputRange(0, -1.0, 1.0);
+    }
+
     /**
      * Zeros the climb motor encoders.
      */
@@ -160,17 +182,16 @@ public class Climb extends SubsystemBase {
     }
 
     public void setLeftMotorVelocity(double speed) {
-        leftMotor.set(speed);
+        leftOutput.set(speed);
     }
 
     public void setRightMotorVelocity(double speed) {
-
-        leftMotor.set(speed);
+        rightOutput.set(speed);
     }
 
     public void setBothMotorVelocity(double speed) {
-        leftMotor.set(speed);
-        rightMotor.set(speed);
+        leftOutput.set(speed);
+        rightOutput.set(speed);
     }
 
     /**
@@ -197,7 +218,7 @@ public class Climb extends SubsystemBase {
      * @param power The power to set the left motor.
      */
     public void setLeftMotorPower(double power) {
-        leftMotor.set(power);
+        leftOutput.set(power);
     }
 
     /**
@@ -206,7 +227,7 @@ public class Climb extends SubsystemBase {
      * @param power The power to set the right motor.
      */
     public void setRightMotorPower(double power) {
-        rightMotor.set(power);
+        rightOutput.set(power);
     }
 
     /**
@@ -226,7 +247,7 @@ public class Climb extends SubsystemBase {
      * @param position The position to set the motor to. (Revolutions)
      */
     public void setRightMotorPosition(double position) {
-        rightPidController.setReference(position, CANSparkMax.ControlType.kPosition);
+        rightOutput.setReference(position, CANSparkMax.ControlType.kPosition);
     }
 
     /**
@@ -236,7 +257,7 @@ public class Climb extends SubsystemBase {
      * @param position The position to set the motor to. (Revolutions)
      */
     public void setLeftMotorPosition(double position) {
-        rightPidController.setReference(position, CANSparkMax.ControlType.kPosition);
+        leftOutput.setReference(position, CANSparkMax.ControlType.kPosition);
     }
 
     /**
@@ -381,12 +402,16 @@ public class Climb extends SubsystemBase {
 
     @Override
     public void periodic() {
-        double pa = gyro.getRoll();
+        periodicSection.start();
+
+        double pa = SensorSampler.getInstance().get().getGyroRoll();
         //System.out.println(pa);
         //updates drivitive calculation
         climbPitchAverage.update(pa);
         climbDrivitiveAvrage.update(Math.abs(pa - oldGyroAngle));
         oldGyroAngle = pa;
+
+        periodicSection.stop();
     }
 
     /**
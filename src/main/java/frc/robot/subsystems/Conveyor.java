@@ -8,13 +8,24 @@ import edu.wpi.first.util.sendable.SendableBuilder;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.devices.ColorSensor;
+import frc.robot.devices.ColorSensor.BallColor;
 import frc.robot.devices.Lidar;
+import frc.robot.utilities.CANBudget;
+import frc.robot.utilities.CANBudget.Role;
+import frc.robot.utilities.MotorOutput;
+import frc.robot.utilities.Readiness;
+import frc.robot.utilities.SensorSampler;
+import frc.robot.utilities.SparkMaxConfig;
+import frc.robot.utilities.SparkMaxConfigurator;
+import frc.robot.utilities.SensorSnapshot;
 import frc.robot.utilities.lists.Ports;
+import frc.robot.utilities.perf.LoopProfiler;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Subsystem to control the conveyor of the robot.
  */
-public class Conveyor extends SubsystemBase {
+public class Conveyor extends SubsystemBase implements Readiness {
 
     // TODO - Set these
     public static final double
@@ -47,13 +58,18 @@ public class Conveyor extends SubsystemBase {
     // PID controllers
     private final SparkMaxPIDController indexPID = index.getPIDController();
 
+    private final MotorOutput beltOutput = new MotorOutput(belt);
+    private final MotorOutput indexOutput = new MotorOutput(index, indexPID);
+
+    private final CompletableFuture<Void> readiness;
+
     // sensors
     private final ColorSensor colorSensor;
     private final Lidar lidar;
 
     // tracker variables
-    private String previousColorSensorMeasurement;
-    private String colorSensorMeasurement;
+    private BallColor previousColorSensorMeasurement;
+    private BallColor colorSensorMeasurement;
     private double lidarDistance;
     private double previousLidarDistance;
     private double colorSensorDistance;
@@ -63,6 +79,9 @@ public class Conveyor extends SubsystemBase {
     private double beltRPM;
     private double indexRPM;
 
+    private final LoopProfiler.Section periodicSection =
+        LoopProfiler.getInstance().section("Conveyor.periodic()");
+
     // Constants storing acceptable distance data
     // TODO - set these
     private static final double
@@ -82,15 +101,8 @@ public class Conveyor extends SubsystemBase {
         this.lidar = lidar;
         zeroEncoders();
 
-        indexPID.setP(P);
-        indexPID.setI(I);
-        indexPID.setD(D);
-        indexPID.setFF(FF);
-        indexPID.setIZone(IZ);
-        indexPID.setOutputRange(-1.0, 1.0);
-
-        previousColorSensorMeasurement = "Unknown";
-        colorSensorMeasurement = "Unknown";
+        previousColorSensorMeasurement = BallColor.UNKNOWN;
+        colorSensorMeasurement = BallColor.UNKNOWN;
         previousLidarDistance = -1.0;
         lidarDistance = -1.0;
         wasBallIndexed = false;
@@ -98,7 +110,44 @@ public class Conveyor extends SubsystemBase {
         doesBallExist = doesBallExist();
         beltRPM = 0;
         indexRPM = 0;
-        index.setInverted(true);
+
+        // the index position is only used by the controller itself
+        CANBudget.getInstance().configure(belt, Role.VELOCITY_ONLY);
+        CANBudget.getInstance().configure(index, Role.VELOCITY_ONLY);
+
+        CompletableFuture<Void> configured = SparkMaxConfigurator.getInstance().configure(
+            index, new SparkMaxConfig()
+                .inverted(true)
+                .pid(0, P, I, D)
+                .feedForward(0, FF, IZ)
+                .outputRange(0, -1.0, 1.0));
+
+        // ball tracking needs the sensors as well as the motors
+        readiness = lidar == null || colorSensor == null
+            ? configured
+            : CompletableFuture.allOf(configured, lidar.getReadiness(), colorSensor.getReadiness());
+
+        SensorSampler.getInstance().register(this::sample);
+    }
+
+    @Override
+    public CompletableFuture<Void> getReadiness() {
+        return readiness;
+    }
+
+    // reads the conveyor sensors into the snapshot
+    private void sample(SensorSnapshot snapshot) {
+        snapshot.setConveyorRPMs(beltEncoder.getVelocity(), indexEncoder.getVelocity());
+
+        if (lidar == null || colorSensor == null) {
+            return;
+        }
+
+        snapshot.setLidarDistance(lidar.getAverageDistance());
+        // one reading, so the color and proximity always go together
+        ColorSensor.Reading reading = colorSensor.getReading();
+        snapshot.setBallColor(reading.getBallColor());
+        snapshot.setColorSensorProximity(reading.getProximity());
     }
 
     /**
@@ -107,7 +156,7 @@ public class Conveyor extends SubsystemBase {
      * @param power The rate-limited power of the belt motor (between 1 and -1).
      */
     public void setBeltMotorPower(double power) {
-        belt.set(power);
+        beltOutput.set(power);
     }
 
     /**
@@ -116,7 +165,7 @@ public class Conveyor extends SubsystemBase {
      * @param power The rate-limited power of the index motor (between 1 and -1).
      */
     public void setIndexMotorPower(double power) {
-        index.set(power);
+        indexOutput.set(power);
     }
 
     /**
@@ -161,7 +210,7 @@ public class Conveyor extends SubsystemBase {
      * @param position The desired position of the index motor.
      */
     public void setIndexTargetPosition(double position) {
-        indexPID.setReference(position, CANSparkMax.ControlType.kPosition);
+        indexOutput.setReference(position, CANSparkMax.ControlType.kPosition);
     }
 
     /**
@@ -194,8 +243,8 @@ public class Conveyor extends SubsystemBase {
      * Stops both motors.
      */
     public void stop() {
-        belt.stopMotor();
-        index.stopMotor();
+        beltOutput.stopMotor();
+        indexOutput.stopMotor();
     }
 
     private Ball colorSensorState = null;
@@ -205,23 +254,33 @@ public class Conveyor extends SubsystemBase {
 
     @Override
     public void periodic() {
+        periodicSection.start();
+        updateBallTracking();
+        periodicSection.stop();
+    }
 
+    /**
+     * Reads the sensors and updates where the balls are in the conveyor.
+     */
+    private void updateBallTracking() {
         if (lidar == null || colorSensor == null) {
             return;
         }
 
+        SensorSnapshot sensors = SensorSampler.getInstance().get();
+
         // Set tracker variables to prevent weird stuff from happening
         // if measurements change mid-cycle.
         previousColorSensorMeasurement = colorSensorMeasurement;
-        colorSensorMeasurement = colorSensor.getColorString();
+        colorSensorMeasurement = sensors.getBallColor();
         previousLidarDistance = lidarDistance;
-        lidarDistance = lidar.getAverageDistance();
-        colorSensorDistance = colorSensor.getProximity();
+        lidarDistance = sensors.getLidarDistance();
+        colorSensorDistance = sensors.getColorSensorProximity();
         wasBallIndexed = isBallIndexed;
         isBallIndexed = isBallIndexed();
         doesBallExist = doesBallExist();
-        beltRPM = -getBeltRPM();
-        indexRPM = -getIndexRPM();
+        beltRPM = -sensors.getBeltRPM();
+        indexRPM = -sensors.getIndexRPM();
 
         if (!doesBallExist) {
 
@@ -234,10 +293,10 @@ public class Conveyor extends SubsystemBase {
         } else if (beltRPM > 0) {
             // If the belt is moving forwards...
 
-            if (colorSensorMeasurement != previousColorSensorMeasurement || (colorSensorMeasurement != "NoTarget" && colorSensorState == null)) {
+            if (colorSensorMeasurement != previousColorSensorMeasurement || (colorSensorMeasurement != BallColor.NONE && colorSensorState == null)) {
                 // If we detect a different measurement
 
-                if (colorSensor.getColorString() == "Blue") {
+                if (colorSensorMeasurement == BallColor.BLUE) {
                     // If the measurement is blue...
                     colorSensorState = new Ball(true);
 
@@ -246,7 +305,7 @@ public class Conveyor extends SubsystemBase {
                         lidarBind = colorSensorState;
                     }
 
-                } else if (colorSensor.getColorString() == "Red") {
+                } else if (colorSensorMeasurement == BallColor.RED) {
                     // If the measurement is red...
                     colorSensorState = new Ball(false);
 
@@ -349,7 +408,7 @@ public class Conveyor extends SubsystemBase {
     }
 
     public double getLidarDistance() {
-        return lidar.getAverageDistance();
+        return SensorSampler.getInstance().get().getLidarDistance();
     }
 
     private class Ball {
@@ -9,28 +9,39 @@ import com.revrobotics.RelativeEncoder;
 import com.revrobotics.SparkMaxPIDController;
 import edu.wpi.first.math.controller.SimpleMotorFeedforward;
 import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.kinematics.DifferentialDriveKinematics;
-import edu.wpi.first.math.kinematics.DifferentialDriveOdometry;
 import edu.wpi.first.math.kinematics.DifferentialDriveWheelSpeeds;
 import edu.wpi.first.math.trajectory.constraint.DifferentialDriveVoltageConstraint;
 import edu.wpi.first.util.sendable.SendableBuilder;
 import edu.wpi.first.wpilibj.PneumaticsModuleType;
 import edu.wpi.first.wpilibj.Solenoid;
-import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.Field2d;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.devices.LEDs.LEDCall;
 import frc.robot.devices.LEDs.LEDRange;
 import frc.robot.devices.LEDs.LEDs;
+import frc.robot.utilities.CANBudget;
+import frc.robot.utilities.CANBudget.Role;
 import frc.robot.utilities.Functions;
+import frc.robot.utilities.MotorOutput;
+import frc.robot.utilities.OdometryIntegrator;
+import frc.robot.utilities.PeriodicExecutor;
+import frc.robot.utilities.Readiness;
+import frc.robot.utilities.SensorSampler;
+import frc.robot.utilities.SensorSnapshot;
+import frc.robot.utilities.SparkMaxConfig;
+import frc.robot.utilities.SparkMaxConfigurator;
 import frc.robot.utilities.lists.Colors;
 import frc.robot.utilities.lists.LEDPriorities;
 import frc.robot.utilities.lists.Ports;
+import frc.robot.utilities.perf.LoopProfiler;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Subsystem to control the drivetrain of the robot.
  */
-public class Drivetrain extends SubsystemBase {
+public class Drivetrain extends SubsystemBase implements Readiness {
 
     // TODO re tune/calculate all these
     public static final double 
@@ -53,6 +64,10 @@ public class Drivetrain extends SubsystemBase {
         MAX_OUTPUT_VOLTAGE = 11,
         DRIVE_WIDTH = 0.6858;
 
+    // odometry runs on the executor ahead of anything following a trajectory
+    private static final double ODOMETRY_PERIOD_MS = 5;
+    private static final int ODOMETRY_PRIORITY = 20;
+
 
     // left motors
     private final CANSparkMax left =
@@ -80,11 +95,15 @@ public class Drivetrain extends SubsystemBase {
     private final SparkMaxPIDController leftPID = left.getPIDController();
     private final SparkMaxPIDController rightPID = right.getPIDController();
 
+    // every output goes through these so unchanged outputs aren't resent
+    private final MotorOutput leftOutput = new MotorOutput(left, leftPID);
+    private final MotorOutput rightOutput = new MotorOutput(right, rightPID);
+
     // encoders
     private final RelativeEncoder leftEncoder = left.getEncoder();
     private final RelativeEncoder rightEncoder = right.getEncoder();
 
-    private final DifferentialDriveOdometry odometry;
+    private final OdometryIntegrator odometry;
 
     private final AHRS gyro;
 
@@ -105,32 +124,28 @@ public class Drivetrain extends SubsystemBase {
 
     private final Solenoid shift;
 
-    private boolean oldShift;
+    // for making robot distance consistent across shifts, read by the odometry thread.
+    // replaced as a whole, so a reader sees the gear and the distances it goes with together
+    private volatile DistanceState distanceState = new DistanceState(false, 0, 0, 0, 0);
 
-    //for making robot distance consistent across shifts
-    private double leftDistanceAcum = 0;
-    private double rightDistanceAcum = 0;
+    private final Field2d f2d;
 
-    private final Timer odometryTime = new Timer();
+    private final CompletableFuture<Void> readiness;
 
-    private final Field2d f2d;
+    private final LoopProfiler.Section periodicSection =
+        LoopProfiler.getInstance().section("Drivetrain.periodic()");
     
     /**
      * i am in PAIN wow this is BAD.
      *
      * @param gyro       odimetry is bad
+     * @param gyroReady  completes once the gyro has finished calibrating
      */
-    public Drivetrain(AHRS gyro) {
+    public Drivetrain(AHRS gyro, CompletableFuture<Void> gyroReady) {
         this.gyro = gyro;
 
         shift = new Solenoid(Ports.PCM_1, PneumaticsModuleType.REVPH, Ports.SHIFT_SOLENOID_UP);
 
-        odometryTime.reset();
-        odometryTime.start();
-
-
-        odometry = new DifferentialDriveOdometry(gyro.getRotation2d());
-
         f2d = new Field2d();
 
         // tells other two motors to follow the first
@@ -140,61 +155,76 @@ public class Drivetrain extends SubsystemBase {
         rightMiddle.follow(right);
         rightBack.follow(right);
 
-        // inverts right side
-        left.setInverted(true);
-        right.setInverted(false);
+        // the followers' frames are never read
+        CANBudget.getInstance().configure(left, Role.LEADER);
+        CANBudget.getInstance().configure(right, Role.LEADER);
+        CANBudget.getInstance().configure(leftMiddle, Role.FOLLOWER);
+        CANBudget.getInstance().configure(leftBack, Role.FOLLOWER);
+        CANBudget.getInstance().configure(rightMiddle, Role.FOLLOWER);
+        CANBudget.getInstance().configure(rightBack, Role.FOLLOWER);
 
         // sets pid values
         zeroDistance();
 
-        // pid for position
-        leftPID.setP(14.301);
-        leftPID.setI(0);
-        leftPID.setD(581.73);
-        leftPID.setOutputRange(-.25, .25);
-
-        rightPID.setP(14.301);
-        rightPID.setI(0);
-        rightPID.setD(581.73);
-        rightPID.setOutputRange(-.25, .25);
-
-        // pid for velocity
-        leftPID.setP(0.00012245, 2);
-        leftPID.setI(0, 2);
-        leftPID.setD(0.0, 2);
-
-        rightPID.setP(0.00012245, 2);
-        rightPID.setI(0, 2);
-        rightPID.setD(0.0, 2);
-
-        left.disableVoltageCompensation();
-        right.disableVoltageCompensation();
-
-        leftMiddle.disableVoltageCompensation();
-        rightMiddle.disableVoltageCompensation();
-
-        leftBack.disableVoltageCompensation();
-        rightBack.disableVoltageCompensation();
-
-        setClosedRampRate(0);
-        setOpenRampRate(0);
-
-        left.setSmartCurrentLimit(40);
-        leftMiddle.setSmartCurrentLimit(40);
-        leftBack.setSmartCurrentLimit(40);
+        // inverts right side
+        SparkMaxConfigurator configurator = SparkMaxConfigurator.getInstance();
+        CompletableFuture<Void> configured = CompletableFuture.allOf(
+            configurator.configure(left, leaderConfig().inverted(true)),
+            configurator.configure(right, leaderConfig().inverted(false)),
+            configurator.configure(leftMiddle, motorConfig()),
+            configurator.configure(leftBack, motorConfig()),
+            configurator.configure(rightMiddle, motorConfig()),
+            configurator.configure(rightBack, motorConfig()));
+
+        SensorSampler.getInstance().register(this::sample);
+
+        // the gyro is clockwise positive, odometry wants counter clockwise positive
+        odometry = new OdometryIntegrator(
+            () -> -gyro.getAngle(),
+            this::getLeftDistance,
+            this::getRightDistance,
+            this::getLeftSpeed,
+            this::getRightSpeed);
+
+        // the odometry can't start until the gyro is calibrated, the reset takes the
+        // heading again once it is
+        readiness = CompletableFuture.allOf(configured, gyroReady).thenRun(() -> {
+            odometry.resetPose(odometry.getPose());
+            odometry.start(ODOMETRY_PERIOD_MS, ODOMETRY_PRIORITY);
+        });
+    }
 
-        right.setSmartCurrentLimit(40);
-        rightMiddle.setSmartCurrentLimit(40);
-        rightBack.setSmartCurrentLimit(40);
+    @Override
+    public CompletableFuture<Void> getReadiness() {
+        return readiness;
+    }
 
-        left.setIdleMode(IdleMode.kBrake);
-        leftMiddle.setIdleMode(IdleMode.kBrake);
-        leftBack.setIdleMode(IdleMode.kBrake);
+    // settings shared by every drive motor
+    private static SparkMaxConfig motorConfig() {
+        return new SparkMaxConfig()
+            .disableVoltageCompensation()
+            .smartCurrentLimit(40)
+            .idleMode(IdleMode.kBrake);
+    }
 
-        right.setIdleMode(IdleMode.kBrake);
-        rightMiddle.setIdleMode(IdleMode.kBrake);
-        rightBack.setIdleMode(IdleMode.kBrake);
+    // the followers copy the leaders' output, so only the leaders need gains.
+    // followers get no ramp rates either, the output they copy has already been ramped by the
+    // leader, and setOpenRampRate()/setClosedRampRate() only change the leaders
+    private static SparkMaxConfig leaderConfig() {
+        return motorConfig()
+            .openLoopRampRate(0)
+            .closedLoopRampRate(0)
+            // pid for position
+            .pid(0, 14.301, 0, 581.73)
+            .outputRange(0, -.25, .25)
+            // pid for velocity
+            .pid(2, 0.00012245, 0, 0.0);
+    }
 
+    // reads the encoders into the snapshot
+    private void sample(SensorSnapshot snapshot) {
+        snapshot.setDrivePositions(leftEncoder.getPosition(), rightEncoder.getPosition());
+        snapshot.setDriveRPMs(leftEncoder.getVelocity(), rightEncoder.getVelocity());
     }
 
 
@@ -203,8 +233,7 @@ public class Drivetrain extends SubsystemBase {
      */
     public void highGear() {
         LEDs.getInstance().removeCall("Low Gear");
-        oldShift = true;
-        updateDistanceAcum();
+        updateDistanceAcum(true);
         shift.set(true);
     }
 
@@ -213,8 +242,7 @@ public class Drivetrain extends SubsystemBase {
      */
     public void lowGear() {
         LEDs.getInstance().addCall("Low Gear", new LEDCall(LEDPriorities.LOW_GEAR, LEDRange.All).sine(Colors.RED));
-        oldShift = false;
-        updateDistanceAcum();
+        updateDistanceAcum(false);
         shift.set(false);
     }
 
@@ -222,7 +250,7 @@ public class Drivetrain extends SubsystemBase {
      * Toggles the shift state.
      */
     public void toggleShift() {
-        if (oldShift) {
+        if (getShift()) {
             lowGear();
         } else {
             highGear();
@@ -231,11 +259,23 @@ public class Drivetrain extends SubsystemBase {
 
     /**
      * Updates the distace acumulator.
+     * The encoders aren't zeroed, the distance so far is banked and the current positions become
+     * the new starting point, all in one new state. So the distance is the same just before and
+     * just after the shift, and never depends on a zero which the controller applies later.
+     *
+     * @param high the gear being shifted into
      */
-    private void updateDistanceAcum() {
-        leftDistanceAcum += getLeftDistance();
-        rightDistanceAcum += getRightDistance();
-        zeroEncoders();
+    private synchronized void updateDistanceAcum(boolean high) {
+        DistanceState old = distanceState;
+        double leftPosition = getLeftEncoderPosition();
+        double rightPosition = getRightEncoderPosition();
+
+        distanceState = new DistanceState(
+            high,
+            leftPosition,
+            rightPosition,
+            old.leftDistance(leftPosition),
+            old.rightDistance(rightPosition));
     }
 
     /**
@@ -244,7 +284,7 @@ public class Drivetrain extends SubsystemBase {
      * @return the shift state where true is high and false is low
      */
     public boolean getShift() {
-        return oldShift;
+        return distanceState.high;
     }
 
     /**
@@ -255,7 +295,7 @@ public class Drivetrain extends SubsystemBase {
     public void setLeftMotorPower(double power) {
         power = Functions.clampDouble(power, 1.0, -1.0);
         synchronized (left) {
-            left.set(power);
+            leftOutput.set(power);
         }
     }
 
@@ -267,7 +307,7 @@ public class Drivetrain extends SubsystemBase {
     public void setRightMotorPower(double power) {
         power = Functions.clampDouble(power, 1.0, -1.0);
         synchronized (right) {
-            right.set(power);
+            rightOutput.set(power);
         }
     }
 
@@ -278,8 +318,8 @@ public class Drivetrain extends SubsystemBase {
      */
     public synchronized void setBothMotorPower(double power) {
         power = Functions.clampDouble(power, 1.0, -1.0);
-        left.set(power);
-        right.set(power);
+        leftOutput.set(power);
+        rightOutput.set(power);
     }
 
     /**
@@ -289,7 +329,7 @@ public class Drivetrain extends SubsystemBase {
      */
     public void setLeftMotorVolts(double volts) {
         synchronized (left) {
-            left.setVoltage(volts);
+            leftOutput.setVoltage(volts);
         }
     }
 
@@ -300,7 +340,7 @@ public class Drivetrain extends SubsystemBase {
      */
     public void setRightMotorVolts(double volts) {
         synchronized (right) {
-            right.setVoltage(volts);
+            rightOutput.setVoltage(volts);
         }
     }
 
@@ -325,8 +365,8 @@ public class Drivetrain extends SubsystemBase {
     public void setMotorTargetSpeed(double leftMS, double rightMS) {
         //leftPID.setFF(getFeedForward().calculate(leftMS));
         //rightPID.setFF(getFeedForward().calculate(rightMS));
-        leftPID.setReference(convertMPStoRPM(leftMS), ControlType.kVelocity, 2);
-        rightPID.setReference(convertMPStoRPM(rightMS), ControlType.kVelocity, 2);
+        leftOutput.setReference(convertMPStoRPM(leftMS), ControlType.kVelocity, 2);
+        rightOutput.setReference(convertMPStoRPM(rightMS), ControlType.kVelocity, 2);
     }
 
     /**
@@ -350,7 +390,7 @@ public class Drivetrain extends SubsystemBase {
      * @param position the target position in terms of motor rotations
      */
     public synchronized void setLeftMotorTarget(double position) {
-        leftPID.setReference(position, ControlType.kPosition);
+        leftOutput.setReference(position, ControlType.kPosition);
     }
 
     /**
@@ -359,7 +399,7 @@ public class Drivetrain extends SubsystemBase {
      * @param position the target position in terms of motor rotations
      */
     public synchronized void setRightMotorTarget(double position) {
-        rightPID.setReference(position, ControlType.kPosition);
+        rightOutput.setReference(position, ControlType.kPosition);
     }
 
     /**
@@ -414,8 +454,7 @@ public class Drivetrain extends SubsystemBase {
      * @apiNote is probably what you want
      */
     public synchronized void zeroDistance() {
-        leftDistanceAcum = 0;
-        rightDistanceAcum = 0;
+        distanceState = new DistanceState(getShift(), 0, 0, 0, 0);
         zeroEncoders();
     }
 
@@ -451,13 +490,7 @@ public class Drivetrain extends SubsystemBase {
      * @return the total distance in meters the side as travled sense the last reset
      */
     public double getLeftDistance() {
-        if (getShift()) {
-            return ((getLeftEncoderPosition() / HIGH_GEAR_RATIO) * WHEEL_CIRCUMFRENCE_IN_METERS)
-                + leftDistanceAcum;
-        } else {
-            return ((getLeftEncoderPosition() / LOW_GEAR_RATIO) * WHEEL_CIRCUMFRENCE_IN_METERS)
-                + leftDistanceAcum;
-        }
+        return distanceState.leftDistance(getLeftEncoderPosition());
     }
 
     /**
@@ -465,13 +498,39 @@ public class Drivetrain extends SubsystemBase {
      *
      * @return the total distance in meters the side as travled sense the last reset
      */
-    public synchronized double getRightDistance() {
-        if (getShift()) {
-            return ((getRightEncoderPosition() / HIGH_GEAR_RATIO) * WHEEL_CIRCUMFRENCE_IN_METERS)
-                + rightDistanceAcum;
-        } else {
-            return ((getRightEncoderPosition() / LOW_GEAR_RATIO) * WHEEL_CIRCUMFRENCE_IN_METERS)
-                + rightDistanceAcum;
+    public double getRightDistance() {
+        return distanceState.rightDistance(getRightEncoderPosition());
+    }
+
+    /**
+     * The gear, and the distances each side had traveled at the encoder positions it was shifted at.
+     */
+    private static final class DistanceState {
+        private final boolean high;
+        private final double leftBase;
+        private final double rightBase;
+        private final double leftOffset;
+        private final double rightOffset;
+
+        private DistanceState(
+            boolean high, double leftBase, double rightBase, double leftOffset, double rightOffset) {
+            this.high = high;
+            this.leftBase = leftBase;
+            this.rightBase = rightBase;
+            this.leftOffset = leftOffset;
+            this.rightOffset = rightOffset;
+        }
+
+        private double leftDistance(double position) {
+            return leftOffset + toMeters(position - leftBase);
+        }
+
+        private double rightDistance(double position) {
+            return rightOffset + toMeters(position - rightBase);
+        }
+
+        private double toMeters(double rotations) {
+            return rotations / (high ? HIGH_GEAR_RATIO : LOW_GEAR_RATIO) * WHEEL_CIRCUMFRENCE_IN_METERS;
         }
     }
 
@@ -480,7 +539,7 @@ public class Drivetrain extends SubsystemBase {
      *
      * @return the linear speed of the side in meters per second
      */
-    public synchronized double getLeftSpeed() {
+    public double getLeftSpeed() {
         if (getShift()) {
             return convertRpmToMetersPerSecond((getLeftRPM() / HIGH_GEAR_RATIO));
         } else {
@@ -493,7 +552,7 @@ public class Drivetrain extends SubsystemBase {
      *
      * @return the linear speed of the side in meters per second
      */
-    public synchronized double getRightSpeed() {
+    public double getRightSpeed() {
         if (getShift()) {
             return convertRpmToMetersPerSecond((getRightRPM() / HIGH_GEAR_RATIO));
         } else {
@@ -538,26 +597,88 @@ public class Drivetrain extends SubsystemBase {
      * Stops the motors.
      */
     public void stop() {
-        left.stopMotor();
-        right.stopMotor();
+        leftOutput.stopMotor();
+        rightOutput.stopMotor();
     }
 
-    public synchronized DifferentialDriveWheelSpeeds getWheelSpeeds() {
-        return new DifferentialDriveWheelSpeeds(getLeftSpeed(), getRightSpeed());
+    /**
+     * Gets the odometry's task on the executor, so other tasks can run right after it.
+     *
+     * @return the task, or null if the odometry hasn't started yet
+     */
+    public PeriodicExecutor.Task getOdometryTask() {
+        return odometry.getTask();
     }
 
     /**
-     * sets the curent pos and RESETS ENCODERS TO 0.
+     * Gets the wheel speeds from the last odometry update.
+     *
+     * @return the wheel speeds
+     */
+    public DifferentialDriveWheelSpeeds getWheelSpeeds() {
+        return odometry.getWheelSpeeds();
+    }
+
+    /**
+     * Sets the current pose.
+     * The encoders are not zeroed, the odometry counts distance from where the pose was set.
      *
      * @param pose the new pose
      */
-    public synchronized void setPose(Pose2d pose) {
-        zeroDistance();
-        odometry.resetPosition(pose, gyro.getRotation2d());
+    public void setPose(Pose2d pose) {
+        odometry.resetPose(pose);
     }
 
-    public synchronized Pose2d getPose() {
-        return odometry.getPoseMeters();
+    /**
+     * Gets the pose from the last odometry update.
+     * Never blocks the odometry thread.
+     *
+     * @return the pose
+     */
+    public Pose2d getPose() {
+        return odometry.getPose();
+    }
+
+    /**
+     * Reads the pose from the last odometry update without allocating.
+     *
+     * @param out array of at least 4, filled with x (m), y (m), heading (rad)
+     *            and the time the pose was sampled at (s)
+     */
+    public void readPose(double[] out) {
+        odometry.readPose(out);
+    }
+
+    /**
+     * Looks up where the robot was at a past time, interpolated between odometry updates.
+     *
+     * @param timestamp the FPGA time in seconds
+     * @param out       array of at least 5, filled with x (m), y (m), heading (rad) and the
+     *                  left and right distance (m), indexed by the constants in PoseHistory
+     * @return false if the time is older than the history
+     */
+    public boolean getPoseAt(double timestamp, double[] out) {
+        return odometry.getPoseAt(timestamp, out);
+    }
+
+    /**
+     * Moves the odometry pose by an offset, used to correct drift.
+     * Doesn't wait for the odometry thread.
+     *
+     * @param dx the distance to move in x in meters
+     * @param dy the distance to move in y in meters
+     */
+    public void correctPose(double dx, double dy) {
+        odometry.correct(dx, dy);
+    }
+
+    /**
+     * Gets how far the odometry has been corrected since the pose was last set.
+     *
+     * @return the correction in meters
+     */
+    public Translation2d getPoseCorrection() {
+        return odometry.getCorrection();
     }
 
     /**
@@ -602,22 +723,6 @@ public class Drivetrain extends SubsystemBase {
         }
     }
 
-    //TODO run a check so we dont update at a unnessaryly fast rate
-    //TODO CONT beacuse its being updated by periodic and followSpline
-
-    /**
-     * Updates odometry.
-     * It only updates at a rate of 500hz maximum.
-     */
-    public synchronized void updateOdometry() {
-        //prevemts unnessarly fast updates to the odemetry (2 ms)
-        if (odometryTime.get() > 0.002) {
-            odometry.update(gyro.getRotation2d(), getLeftDistance(), getRightDistance());
-            odometryTime.reset();
-        }
-        f2d.setRobotPose(odometry.getPoseMeters());
-    }
-
     public double getRotation() {
         return gyro.getRotation2d().getDegrees();
     }
@@ -627,11 +732,15 @@ public class Drivetrain extends SubsystemBase {
      * Method that runs once per scheduler cycle.
      */
     public void periodic() {
-        // Update the odometry in the periodic block
-        updateOdometry();
+        periodicSection.start();
+
+        // odometry is updated on its own thread, this only shows it
+        f2d.setRobotPose(getPose());
         // System.out.println(MPStoRPM(getRightSpeed()));
         // System.out.println(rightEncoder.getVelocity());
         // System.out.println("------------------------");
+
+        periodicSection.stop();
     }
 
     @Override
@@ -7,12 +7,20 @@ import edu.wpi.first.util.sendable.SendableBuilder;
 import edu.wpi.first.wpilibj.PneumaticsModuleType;
 import edu.wpi.first.wpilibj.Solenoid;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.utilities.CANBudget;
+import frc.robot.utilities.CANBudget.Role;
+import frc.robot.utilities.MotorOutput;
+import frc.robot.utilities.Readiness;
+import frc.robot.utilities.SparkMaxConfig;
+import frc.robot.utilities.SparkMaxConfigurator;
 import frc.robot.utilities.lists.Ports;
+import frc.robot.utilities.perf.LoopProfiler;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Subsystem to control the intake of the robot.
  */
-public class Intake extends SubsystemBase {
+public class Intake extends SubsystemBase implements Readiness {
 
     /**
      * Enum for Intake States.
@@ -31,6 +39,9 @@ public class Intake extends SubsystemBase {
     // motor
     private final CANSparkMax intakeMotor =
         new CANSparkMax(Ports.INTAKE_MOTOR, MotorType.kBrushless);
+    private final MotorOutput intakeOutput = new MotorOutput(intakeMotor);
+
+    private final CompletableFuture<Void> readiness;
 
     // solenoid
     private final Solenoid intakeSolenoid =
@@ -42,6 +53,9 @@ public class Intake extends SubsystemBase {
     // variable to track the intake solenoid's position.
     private boolean intakeSolenoidPosition = false;
 
+    private final LoopProfiler.Section periodicSection =
+        LoopProfiler.getInstance().section("Intake.periodic()");
+
 
     /**
      * Subsystem to control the intake of the robot.
@@ -49,7 +63,14 @@ public class Intake extends SubsystemBase {
     public Intake() {
         zeroEncoder();
         state = States.UP;
-        intakeMotor.setOpenLoopRampRate(INTAKE_RATE);
+        CANBudget.getInstance().configure(intakeMotor, Role.VELOCITY_ONLY);
+        readiness = SparkMaxConfigurator.getInstance().configure(
+            intakeMotor, new SparkMaxConfig().openLoopRampRate(INTAKE_RATE));
+    }
+
+    @Override
+    public CompletableFuture<Void> getReadiness() {
+        return readiness;
     }
 
     /**
@@ -58,7 +79,7 @@ public class Intake extends SubsystemBase {
      * @param power The intake motor's power, measured between 1.0 and -1.0
      */
     public void setIntakeMotorPower(double power) {
-        intakeMotor.set(power);
+        intakeOutput.set(power);
     }
 
     /**
@@ -118,7 +139,7 @@ public class Intake extends SubsystemBase {
      * Stops the intake motor.
      */
     public void stop() {
-        intakeMotor.stopMotor();
+        intakeOutput.stopMotor();
     }
 
     /**
@@ -163,7 +184,9 @@ public class Intake extends SubsystemBase {
 
     @Override
     public void periodic() {
+        periodicSection.start();
         updateState();
+        periodicSection.stop();
     }
     
     @Override
@@ -0,0 +1,145 @@
+package frc.robot.subsystems;
+
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.util.sendable.SendableBuilder;
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.devices.Lemonlight;
+import frc.robot.utilities.PoseHistory;
+import frc.robot.utilities.SensorSampler;
+import frc.robot.utilities.SensorSnapshot;
+import frc.robot.utilities.lists.FieldConstants;
+import frc.robot.utilities.perf.LoopProfiler;
+
+/**
+ * Corrects odometry drift using the hub seen by the targeting camera.
+ * Each measurement is compared against where the odometry says the robot was when the
+ * image was taken, and the drivetrain pose is nudged towards it.
+ * Only position is corrected, the gyro is trusted for heading.
+ */
+public class PoseEstimator extends SubsystemBase {
+
+    // TODO - tune these
+    public static final double
+        // fraction of each measurement's error that gets corrected
+        VISION_GAIN = 0.2,
+        // measurements further off than this are thrown out (m)
+        MAX_CORRECTION = 1.0,
+        // distances the camera's estimate can be trusted between (m)
+        MIN_TRUSTED_DISTANCE = 1.0,
+        MAX_TRUSTED_DISTANCE = 6.0,
+        // where the camera is from the center of the robot, forwards (m)
+        CAMERA_FORWARD_OFFSET = 0.0;
+
+    private static final double INCHES_TO_METERS = 0.0254;
+
+    private final Drivetrain drivetrain;
+
+    private final double[] pastPose = new double[5];
+
+    private long lastFrame = -1;
+    private int acceptedMeasurements = 0;
+    private int rejectedMeasurements = 0;
+    private double lastError = 0;
+
+    private final LoopProfiler.Section periodicSection =
+        LoopProfiler.getInstance().section("PoseEstimator.periodic()");
+
+    /**
+     * Creates the pose estimator.
+     * The targeting camera is read through the sensor snapshot.
+     *
+     * @param drivetrain the drivetrain whose pose is corrected
+     */
+    public PoseEstimator(Drivetrain drivetrain) {
+        this.drivetrain = drivetrain;
+    }
+
+    @Override
+    public void periodic() {
+        periodicSection.start();
+
+        SensorSnapshot sensors = SensorSampler.getInstance().get();
+
+        // only uses each frame once
+        if (sensors.hasTarget() && sensors.getTargetFrame() != lastFrame) {
+            lastFrame = sensors.getTargetFrame();
+            addMeasurement(sensors);
+        }
+
+        periodicSection.stop();
+    }
+
+    private void addMeasurement(SensorSnapshot sensors) {
+        double distance = Lemonlight.getLimelightDistanceEstimateIN(
+            Lemonlight.MAIN_MOUNT_HEIGHT,
+            Lemonlight.MAIN_MOUNT_ANGLE,
+            Lemonlight.MAIN_TARGET_HEIGHT,
+            sensors.getTargetVerticalOffset()) * INCHES_TO_METERS;
+
+        if (distance < MIN_TRUSTED_DISTANCE || distance > MAX_TRUSTED_DISTANCE) {
+            rejectedMeasurements++;
+            return;
+        }
+
+        // where the odometry thinks the robot was when the image was taken
+        if (!drivetrain.getPoseAt(sensors.getTargetCaptureTime(), pastPose)) {
+            rejectedMeasurements++;
+            return;
+        }
+
+        // the camera's yaw is clockwise positive, the field is counter clockwise positive
+        double heading = pastPose[PoseHistory.HEADING];
+        double bearing = heading - Math.toRadians(sensors.getTargetHorizontalOffset());
+        double range = distance + FieldConstants.HUB_VISION_RADIUS;
+
+        // works backwards from the hub to where the camera must have been
+        double visionX = FieldConstants.HUB_X - range * Math.cos(bearing)
+            - CAMERA_FORWARD_OFFSET * Math.cos(heading);
+        double visionY = FieldConstants.HUB_Y - range * Math.sin(bearing)
+            - CAMERA_FORWARD_OFFSET * Math.sin(heading);
+
+        double errorX = visionX - pastPose[PoseHistory.X];
+        double errorY = visionY - pastPose[PoseHistory.Y];
+        lastError = Math.hypot(errorX, errorY);
+
+        if (lastError > MAX_CORRECTION) {
+            rejectedMeasurements++;
+            return;
+        }
+
+        // the same offset applies to every pose since the image, which replays the odometry
+        drivetrain.correctPose(errorX * VISION_GAIN, errorY * VISION_GAIN);
+        acceptedMeasurements++;
+    }
+
+    public int getAcceptedMeasurements() {
+        return acceptedMeasurements;
+    }
+
+    public int getRejectedMeasurements() {
+        return rejectedMeasurements;
+    }
+
+    /**
+     * Gets how far off the odometry was from the last measurement.
+     *
+     * @return the error in meters
+     */
+    public double getLastError() {
+        return lastError;
+    }
+
+    @Override
+    public void initSendable(SendableBuilder builder) {
+        builder.setSmartDashboardType("PoseEstimator");
+        builder.addDoubleProperty("correctionX", () -> getCorrection().getX(), null);
+        builder.addDoubleProperty("correctionY", () -> getCorrection().getY(), null);
+        builder.addDoubleProperty("lastError", this::getLastError, null);
+        builder.addDoubleProperty("accepted", this::getAcceptedMeasurements, null);
+        builder.addDoubleProperty("rejected", this::getRejectedMeasurements, null);
+    }
+
+    private Translation2d getCorrection() {
+        return drivetrain.getPoseCorrection();
+    }
+}
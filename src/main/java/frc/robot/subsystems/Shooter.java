@@ -12,13 +12,21 @@ import edu.wpi.first.wpilibj.PneumaticsModuleType;
 import edu.wpi.first.wpilibj.Solenoid;
 import edu.wpi.first.wpilibj.motorcontrol.Spark;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.utilities.CANBudget;
+import frc.robot.utilities.CANBudget.Role;
 import frc.robot.utilities.Functions;
+import frc.robot.utilities.MotorOutput;
+import frc.robot.utilities.Readiness;
+import frc.robot.utilities.SensorSampler;
+import frc.robot.utilities.SparkMaxConfig;
+import frc.robot.utilities.SparkMaxConfigurator;
 import frc.robot.utilities.lists.Ports;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Subsystem for the Shooter mechanism.
  */
-public class Shooter extends SubsystemBase {
+public class Shooter extends SubsystemBase implements Readiness {
 
     /**
      * Enum describing shooter state.
@@ -62,6 +70,10 @@ public class Shooter extends SubsystemBase {
 
     // Pid controller
     private final SparkMaxPIDController shooterMotorPIDController = shooterMotorMain.getPIDController();
+    private final MotorOutput shooterOutput =
+        new MotorOutput(shooterMotorMain, shooterMotorPIDController);
+
+    private final CompletableFuture<Void> readiness;
 
     // Encoder
     private final RelativeEncoder shooterEncoder = shooterMotorMain.getEncoder();
@@ -73,15 +85,24 @@ public class Shooter extends SubsystemBase {
      * Creates a new shooter instance.
      */
     public Shooter() {
-        shooterMotorPIDController.setP(P);
-        shooterMotorPIDController.setI(I);
-        shooterMotorPIDController.setD(D);
-        shooterMotorPIDController.setFF(FF);
-        shooterMotorPIDController.setIZone(IZ);
-        shooterMotorPIDController.setOutputRange(-1.0, 1.0);
-        
         zeroEncoders();
         shooterMotorFollow.follow(shooterMotorMain, true);
+
+        CANBudget.getInstance().configure(shooterMotorMain, Role.VELOCITY_ONLY);
+        CANBudget.getInstance().configure(shooterMotorFollow, Role.FOLLOWER);
+
+        readiness = SparkMaxConfigurator.getInstance().configure(shooterMotorMain, new SparkMaxConfig()
+            .pid(0, P, I, D)
+            .feedForward(0, FF, IZ)
+            .outputRange(0, -1.0, 1.0));
+
+        SensorSampler.getInstance().register(
+            snapshot -> snapshot.setShooterRPM(shooterEncoder.getVelocity()));
+    }
+
+    @Override
+    public CompletableFuture<Void> getReadiness() {
+        return readiness;
     }
 
     public void setState(States state) {
@@ -98,7 +119,7 @@ public class Shooter extends SubsystemBase {
      * @param power speed to set the motor to
      */
     public void setMotorPower(double power) {
-        shooterMotorMain.set(power);
+        shooterOutput.set(power);
     }
     
     /**
@@ -115,7 +136,7 @@ public class Shooter extends SubsystemBase {
      */
     public void setMotorVolts(double volts) {
         volts = Functions.clampDouble(volts, 12, -12);
-        shooterMotorMain.setVoltage(volts);
+        shooterOutput.setVoltage(volts);
     }
 
     /**
@@ -125,7 +146,7 @@ public class Shooter extends SubsystemBase {
      */
     public void setMotorTargetSpeed(double speed) {
         speed = Functions.clampDouble(speed, MAX_RPM, -MAX_RPM);
-        shooterMotorPIDController.setReference(speed, CANSparkMax.ControlType.kVelocity);
+        shooterOutput.setReference(speed, CANSparkMax.ControlType.kVelocity);
     }
 
     /**
@@ -0,0 +1,86 @@
+package frc.robot.utilities;
+
+import frc.robot.devices.Lemonlight;
+
+/**
+ * The balls seen by the ball detection camera, one for each target in a frame.
+ * Stored as parallel arrays which are reused every frame, so decoding never allocates.
+ */
+public class BallDetections {
+
+    public static final int MAX_BALLS = 16;
+
+    // the camera's angles (degrees)
+    public final double[] xAngle = new double[MAX_BALLS];
+    public final double[] yAngle = new double[MAX_BALLS];
+    // distances from the camera (in)
+    public final double[] xDistance = new double[MAX_BALLS];
+    public final double[] yDistance = new double[MAX_BALLS];
+    public final double[] distance = new double[MAX_BALLS];
+    public final boolean[] red = new boolean[MAX_BALLS];
+
+    private int count = 0;
+
+    /**
+     * Decodes every target in a camera frame, replacing the balls already held.
+     * Anything past {@link #MAX_BALLS} is dropped. The frame doesn't say what color the balls are,
+     * so it is given.
+     *
+     * @param frame the frame
+     * @param isRed the color the camera's pipeline looks for
+     * @return the number of balls decoded
+     */
+    public int decode(TargetFrame frame, boolean isRed) {
+        count = 0;
+
+        int targets = Math.min(frame.getTargetCount(), MAX_BALLS);
+        for (int i = 0; i < targets; i++) {
+            add(frame.getTargetYaw(i), frame.getTargetPitch(i), isRed);
+        }
+
+        return count;
+    }
+
+    private void add(double x, double y, boolean isRed) {
+        double forward = Lemonlight.getLimelightDistanceEstimateIN(
+            Lemonlight.BALL_MOUNT_HEIGHT,
+            Lemonlight.BALL_MOUNT_ANGLE,
+            Lemonlight.BALL_TARGET_HEIGHT,
+            y);
+        // takes the forward distance in cm
+        double lateral = Lemonlight.getXOOffsetDistanceEstimateIN(
+            x, Lemonlight.BALL_MOUNT_ANGLE_X, 0, forward * 2.54);
+
+        xAngle[count] = x;
+        yAngle[count] = y;
+        xDistance[count] = lateral;
+        yDistance[count] = forward;
+        distance[count] = Math.sqrt(lateral * lateral + forward * forward);
+        red[count] = isRed;
+        count++;
+    }
+
+    /**
+     * Gets the closest ball of a color.
+     *
+     * @param teamBlue true to look for blue balls, false for red
+     * @return the index of the ball, or -1 if there isn't one
+     */
+    public int getBestBall(boolean teamBlue) {
+        int best = -1;
+        for (int i = 0; i < count; i++) {
+            if (red[i] != teamBlue && (best < 0 || distance[i] < distance[best])) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public void clear() {
+        count = 0;
+    }
+}
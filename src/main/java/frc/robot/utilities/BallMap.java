@@ -0,0 +1,180 @@
+package frc.robot.utilities;
+
+import frc.robot.utilities.lists.FieldConstants;
+
+/**
+ * Remembers where balls have been seen on the field, so they can be gone back to once out of view.
+ * The field is split into a fixed grid of cells, each holding a confidence for each color which
+ * decays over time. Decay is worked out when a cell is read, so nothing has to touch every cell
+ * each loop, and the map never grows.
+ * Positions are in meters from the blue alliance corner.
+ */
+public class BallMap {
+
+    // TODO - tune these
+    public static final double
+        // size of each cell (m)
+        CELL_SIZE = 0.25,
+        // how much confidence each detection adds, out of 1
+        DETECTION_WEIGHT = 0.35,
+        // time for confidence to fall to 1/e (s)
+        DECAY_TIME = 8,
+        // cells less confident than this aren't counted as balls
+        MIN_CONFIDENCE = 0.5;
+
+    public static final int
+        COLUMNS = (int) Math.ceil(FieldConstants.FIELD_LENGTH / CELL_SIZE),
+        ROWS = (int) Math.ceil(FieldConstants.FIELD_WIDTH / CELL_SIZE);
+
+    // index is the cell index * 2, plus 1 for red
+    private final float[] confidence = new float[COLUMNS * ROWS * 2];
+    private final double[] updated = new double[COLUMNS * ROWS * 2];
+
+    private final double[] result = new double[2];
+
+    /**
+     * Adds a ball seen at a position.
+     * Positions off the field are ignored.
+     *
+     * @param x    the x position in meters
+     * @param y    the y position in meters
+     * @param red  if the ball is red
+     * @param time the FPGA time the ball was seen in seconds
+     */
+    public void add(double x, double y, boolean red, double time) {
+        int cell = cellAt(x, y);
+        if (cell < 0) {
+            return;
+        }
+
+        int index = cell * 2 + (red ? 1 : 0);
+        double current = decayed(index, time);
+        confidence[index] = (float) (current + DETECTION_WEIGHT * (1 - current));
+        updated[index] = time;
+    }
+
+    /**
+     * Forgets every ball within a distance of a point, used once the robot has driven over them.
+     *
+     * @param x      the x position in meters
+     * @param y      the y position in meters
+     * @param radius the distance in meters
+     */
+    public void clearAround(double x, double y, double radius) {
+        int minColumn = Math.max(0, (int) ((x - radius) / CELL_SIZE));
+        int maxColumn = Math.min(COLUMNS - 1, (int) ((x + radius) / CELL_SIZE));
+        int minRow = Math.max(0, (int) ((y - radius) / CELL_SIZE));
+        int maxRow = Math.min(ROWS - 1, (int) ((y + radius) / CELL_SIZE));
+
+        for (int column = minColumn; column <= maxColumn; column++) {
+            for (int row = minRow; row <= maxRow; row++) {
+                double dx = (column + 0.5) * CELL_SIZE - x;
+                double dy = (row + 0.5) * CELL_SIZE - y;
+                if (dx * dx + dy * dy <= radius * radius) {
+                    int cell = row * COLUMNS + column;
+                    confidence[cell * 2] = 0;
+                    confidence[cell * 2 + 1] = 0;
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the nearest remembered ball of a color.
+     *
+     * @param x    the x position to search from in meters
+     * @param y    the y position to search from in meters
+     * @param red  true to look for red balls, false for blue
+     * @param time the current FPGA time in seconds
+     * @return the ball's x and y in meters, or null if no ball is remembered.
+     *         The array is reused by the next call.
+     */
+    public double[] findNearest(double x, double y, boolean red, double time) {
+        int color = red ? 1 : 0;
+        int best = -1;
+        double bestDistance = Double.POSITIVE_INFINITY;
+
+        for (int cell = 0; cell < COLUMNS * ROWS; cell++) {
+            int index = cell * 2 + color;
+            // skips the exp for cells which could never be confident enough
+            if (confidence[index] < MIN_CONFIDENCE || decayed(index, time) < MIN_CONFIDENCE) {
+                continue;
+            }
+
+            double dx = cellX(cell) - x;
+            double dy = cellY(cell) - y;
+            double distance = dx * dx + dy * dy;
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = cell;
+            }
+        }
+
+        if (best < 0) {
+            return null;
+        }
+
+        result[0] = cellX(best);
+        result[1] = cellY(best);
+        return result;
+    }
+
+    /**
+     * Gets how confident the map is that a ball is at a position.
+     *
+     * @param x    the x position in meters
+     * @param y    the y position in meters
+     * @param red  true for red balls, false for blue
+     * @param time the current FPGA time in seconds
+     * @return the confidence from 0 to 1
+     */
+    public double getConfidence(double x, double y, boolean red, double time) {
+        int cell = cellAt(x, y);
+        return cell < 0 ? 0 : decayed(cell * 2 + (red ? 1 : 0), time);
+    }
+
+    /**
+     * Counts the cells confident enough to be balls.
+     *
+     * @param time the current FPGA time in seconds
+     * @return the number of cells
+     */
+    public int getBallCount(double time) {
+        int count = 0;
+        for (int index = 0; index < confidence.length; index++) {
+            if (confidence[index] >= MIN_CONFIDENCE && decayed(index, time) >= MIN_CONFIDENCE) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Forgets every ball.
+     */
+    public void clear() {
+        for (int index = 0; index < confidence.length; index++) {
+            confidence[index] = 0;
+        }
+    }
+
+    private double decayed(int index, double time) {
+        return confidence[index] * Math.exp(-(time - updated[index]) / DECAY_TIME);
+    }
+
+    // -1 if off the field
+    private static int cellAt(double x, double y) {
+        if (!(x >= 0 && x < FieldConstants.FIELD_LENGTH && y >= 0 && y < FieldConstants.FIELD_WIDTH)) {
+            return -1;
+        }
+        return (int) (y / CELL_SIZE) * COLUMNS + (int) (x / CELL_SIZE);
+    }
+
+    private static double cellX(int cell) {
+        return (cell % COLUMNS + 0.5) * CELL_SIZE;
+    }
+
+    private static double cellY(int cell) {
+        return (cell / COLUMNS + 0.5) * CELL_SIZE;
+    }
+}
@@ -0,0 +1,262 @@
+package frc.robot.utilities;
+
+/**
+ * Follows balls from frame to frame so each one keeps an id while it is in view.
+ * Detections are matched to tracks by gated nearest neighbour, and each track runs an
+ * alpha-beta (constant velocity) filter, so a track coasts on its velocity through short dropouts.
+ * Positions are relative to the camera, lateral is right positive (in).
+ * Tracks are kept in fixed arrays, so updating never allocates.
+ */
+public class BallTracker {
+
+    // TODO - tune these
+    public static final double
+        // detections further than this from a track can't be matched to it (in)
+        GATE = 24,
+        // tracks which haven't been seen for this long are dropped (s)
+        COAST_TIME = 0.5,
+        // how much of each measurement's error goes into the position and velocity
+        ALPHA = 0.5,
+        BETA = 0.2;
+
+    // tracks need this many matches before they are used
+    public static final int MIN_HITS = 3;
+
+    public static final int MAX_TRACKS = 8;
+
+    // 0 is a free slot
+    private final long[] ids = new long[MAX_TRACKS];
+    private final double[] lateral = new double[MAX_TRACKS];
+    private final double[] forward = new double[MAX_TRACKS];
+    private final double[] lateralVelocity = new double[MAX_TRACKS];
+    private final double[] forwardVelocity = new double[MAX_TRACKS];
+    private final double[] lastPredicted = new double[MAX_TRACKS];
+    private final double[] lastSeen = new double[MAX_TRACKS];
+    private final int[] hits = new int[MAX_TRACKS];
+    private final boolean[] red = new boolean[MAX_TRACKS];
+
+    private final boolean[] trackMatched = new boolean[MAX_TRACKS];
+    private final boolean[] detectionMatched = new boolean[BallDetections.MAX_BALLS];
+
+    private long nextId = 1;
+
+    /**
+     * Moves every track forwards to a time on its velocity, dropping tracks which have coasted too long.
+     *
+     * @param time the FPGA time in seconds
+     */
+    public void predict(double time) {
+        for (int i = 0; i < MAX_TRACKS; i++) {
+            if (ids[i] == 0) {
+                continue;
+            }
+
+            if (time - lastSeen[i] > COAST_TIME) {
+                ids[i] = 0;
+                continue;
+            }
+
+            double dt = time - lastPredicted[i];
+            lateral[i] += lateralVelocity[i] * dt;
+            forward[i] += forwardVelocity[i] * dt;
+            lastPredicted[i] = time;
+        }
+    }
+
+    /**
+     * Updates the tracks with a new frame of detections.
+     *
+     * @param detections the balls seen in the frame
+     * @param time       the FPGA time the frame was taken in seconds
+     */
+    public void update(BallDetections detections, double time) {
+        predict(time);
+
+        int count = detections.getCount();
+        for (int i = 0; i < MAX_TRACKS; i++) {
+            trackMatched[i] = false;
+        }
+        for (int j = 0; j < count; j++) {
+            detectionMatched[j] = false;
+        }
+
+        // matches the closest pair each time, so a ball can't steal another ball's track
+        while (true) {
+            int bestTrack = -1;
+            int bestDetection = -1;
+            double bestDistance = GATE * GATE;
+
+            for (int i = 0; i < MAX_TRACKS; i++) {
+                if (ids[i] == 0 || trackMatched[i]) {
+                    continue;
+                }
+
+                for (int j = 0; j < count; j++) {
+                    if (detectionMatched[j] || detections.red[j] != red[i]) {
+                        continue;
+                    }
+
+                    double dx = detections.xDistance[j] - lateral[i];
+                    double dy = detections.yDistance[j] - forward[i];
+                    double distance = dx * dx + dy * dy;
+                    if (distance < bestDistance) {
+                        bestDistance = distance;
+                        bestTrack = i;
+                        bestDetection = j;
+                    }
+                }
+            }
+
+            if (bestTrack < 0) {
+                break;
+            }
+
+            trackMatched[bestTrack] = true;
+            detectionMatched[bestDetection] = true;
+            correct(bestTrack, detections.xDistance[bestDetection], detections.yDistance[bestDetection], time);
+        }
+
+        for (int j = 0; j < count; j++) {
+            if (!detectionMatched[j]) {
+                start(detections.xDistance[j], detections.yDistance[j], detections.red[j], time);
+            }
+        }
+    }
+
+    private void correct(int track, double measuredLateral, double measuredForward, double time) {
+        double lateralError = measuredLateral - lateral[track];
+        double forwardError = measuredForward - forward[track];
+
+        lateral[track] += ALPHA * lateralError;
+        forward[track] += ALPHA * forwardError;
+
+        // the error built up over the whole time since the last match
+        double dt = time - lastSeen[track];
+        if (dt > 0) {
+            lateralVelocity[track] += BETA * lateralError / dt;
+            forwardVelocity[track] += BETA * forwardError / dt;
+        }
+
+        lastSeen[track] = time;
+        hits[track]++;
+    }
+
+    private void start(double startLateral, double startForward, boolean isRed, double time) {
+        for (int i = 0; i < MAX_TRACKS; i++) {
+            if (ids[i] != 0) {
+                continue;
+            }
+
+            ids[i] = nextId++;
+            lateral[i] = startLateral;
+            forward[i] = startForward;
+            lateralVelocity[i] = 0;
+            forwardVelocity[i] = 0;
+            lastPredicted[i] = time;
+            lastSeen[i] = time;
+            hits[i] = 1;
+            red[i] = isRed;
+            return;
+        }
+    }
+
+    /**
+     * Gets the closest confirmed track of a color.
+     *
+     * @param teamBlue true to look for blue balls, false for red
+     * @return the slot of the track, or -1 if there isn't one
+     */
+    public int getBestTrack(boolean teamBlue) {
+        int best = -1;
+        for (int i = 0; i < MAX_TRACKS; i++) {
+            if (isConfirmed(i) && red[i] != teamBlue && (best < 0 || getDistance(i) < getDistance(best))) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Finds the slot holding a track.
+     *
+     * @param id the id of the track
+     * @return the slot, or -1 if the track has been dropped
+     */
+    public int indexOf(long id) {
+        for (int i = 0; i < MAX_TRACKS; i++) {
+            if (id != 0 && ids[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the id of the track in a slot, ids are never reused.
+     *
+     * @param slot the slot
+     * @return the id, or 0 if the slot is free
+     */
+    public long getId(int slot) {
+        return ids[slot];
+    }
+
+    public boolean isConfirmed(int slot) {
+        return ids[slot] != 0 && hits[slot] >= MIN_HITS;
+    }
+
+    public boolean isRed(int slot) {
+        return red[slot];
+    }
+
+    public double getLateral(int slot) {
+        return lateral[slot];
+    }
+
+    public double getForward(int slot) {
+        return forward[slot];
+    }
+
+    public double getDistance(int slot) {
+        return Math.hypot(lateral[slot], forward[slot]);
+    }
+
+    /**
+     * Gets the angle to the track, the same as the camera's horizontal offset.
+     *
+     * @param slot the slot
+     * @return the angle in degrees, right positive
+     */
+    public double getAngle(int slot) {
+        return Math.toDegrees(Math.atan2(lateral[slot], forward[slot]));
+    }
+
+    /**
+     * Gets when the track was last matched to a detection.
+     *
+     * @param slot the slot
+     * @return the FPGA time in seconds
+     */
+    public double getLastSeen(int slot) {
+        return lastSeen[slot];
+    }
+
+    public int getTrackCount() {
+        int count = 0;
+        for (int i = 0; i < MAX_TRACKS; i++) {
+            if (ids[i] != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Drops every track.
+     */
+    public void clear() {
+        for (int i = 0; i < MAX_TRACKS; i++) {
+            ids[i] = 0;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package frc.robot.utilities;
+
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.CANSparkMaxLowLevel.PeriodicFrame;
+import com.revrobotics.REVLibError;
+import edu.wpi.first.hal.can.CANStatus;
+import edu.wpi.first.util.sendable.Sendable;
+import edu.wpi.first.util.sendable.SendableBuilder;
+import edu.wpi.first.wpilibj.RobotController;
+import java.util.ArrayList;
+
+/**
+ * Sets the status frame rates of every Spark Max based on what is actually read from it.
+ * Also estimates how much of the CAN bus the status frames use, and reports the real usage.
+ *
+ * <p>Spark Max status frames:
+ * 0 - applied output and faults, followers copy their leader's output from this frame.
+ * 1 - velocity, temperature, voltage and current.
+ * 2 - position.
+ * 3 - analog sensor, never used on this robot.
+ */
+public class CANBudget implements Sendable {
+
+    private static CANBudget instance = null;
+
+    // bits in an extended CAN frame with 8 data bytes, including worst case bit stuffing
+    public static final double BITS_PER_FRAME = 160;
+    public static final double BUS_BITS_PER_SECOND = 1_000_000;
+
+    // the slowest a frame can be set to
+    public static final int SLOW = 500;
+
+    /**
+     * What is read from a controller, which decides its frame rates.
+     * Anything that isn't a follower keeps status 0 fast, since followers depend on it.
+     */
+    public enum Role {
+        // position, velocity and current are all read
+        LEADER(10, 20, 20, SLOW),
+        // nothing is read, the motor only copies its leader
+        FOLLOWER(SLOW, SLOW, SLOW, SLOW),
+        // only position is read
+        POSITION_ONLY(10, SLOW, 20, SLOW),
+        // only velocity or current is read
+        VELOCITY_ONLY(10, 20, SLOW, SLOW);
+
+        private final int[] periods;
+
+        Role(int status0, int status1, int status2, int status3) {
+            periods = new int[] {status0, status1, status2, status3};
+        }
+
+        /**
+         * Gets the period of a status frame.
+         *
+         * @param frame the frame
+         * @return the period in ms
+         */
+        public int getPeriod(PeriodicFrame frame) {
+            return periods[frame.value];
+        }
+
+        /**
+         * Gets the number of status frames sent per second.
+         *
+         * @return the frames per second
+         */
+        public double getFramesPerSecond() {
+            double total = 0;
+            for (int period : periods) {
+                total += 1000.0 / period;
+            }
+            return total;
+        }
+    }
+
+    private final ArrayList<CANSparkMax> motors = new ArrayList<>();
+    private final ArrayList<Role> roles = new ArrayList<>();
+
+    private int failures = 0;
+    private CANStatus status = new CANStatus();
+
+    /**
+     * Gets the CAN budget instance using the singleton pattern.
+     *
+     * @return the CAN budget instance
+     */
+    public static synchronized CANBudget getInstance() {
+        if (instance == null) {
+            instance = new CANBudget();
+        }
+
+        return instance;
+    }
+
+    private CANBudget() {
+    }
+
+    /**
+     * Sets the status frame rates of a motor for its role.
+     * Call this after any follow() calls.
+     *
+     * @param motor the motor
+     * @param role  what is read from the motor
+     */
+    public synchronized void configure(CANSparkMax motor, Role role) {
+        for (PeriodicFrame frame : PeriodicFrame.values()) {
+            REVLibError error = motor.setPeriodicFramePeriod(frame, role.getPeriod(frame));
+            if (error != REVLibError.kOk) {
+                failures++;
+                System.out.println("failed to set " + frame + " on Spark Max "
+                    + motor.getDeviceId() + ": " + error);
+            }
+        }
+
+        int index = motors.indexOf(motor);
+        if (index >= 0) {
+            roles.set(index, role);
+        } else {
+            motors.add(motor);
+            roles.add(role);
+        }
+    }
+
+    /**
+     * Estimates how much of the bus the configured status frames use.
+     * Control frames and other devices aren't counted.
+     *
+     * @return the estimated utilization from 0 to 1
+     */
+    public synchronized double getEstimatedUtilization() {
+        double framesPerSecond = 0;
+        for (Role role : roles) {
+            framesPerSecond += role.getFramesPerSecond();
+        }
+
+        return framesPerSecond * BITS_PER_FRAME / BUS_BITS_PER_SECOND;
+    }
+
+    /**
+     * Gets the number of frame rates that could not be set.
+     *
+     * @return the number of failures
+     */
+    public synchronized int getFailures() {
+        return failures;
+    }
+
+    // the status is read once per update, every other property reuses it
+    private double updateBusUtilization() {
+        status = RobotController.getCANStatus();
+        return status.percentBusUtilization;
+    }
+
+    @Override
+    public void initSendable(SendableBuilder builder) {
+        builder.setSmartDashboardType("CANBudget");
+        builder.addDoubleProperty("busUtilization", this::updateBusUtilization, null);
+        builder.addDoubleProperty("estimatedUtilization", this::getEstimatedUtilization, null);
+        builder.addDoubleProperty("busOffCount", () -> status.busOffCount, null);
+        builder.addDoubleProperty("txFullCount", () -> status.txFullCount, null);
+        builder.addDoubleProperty("receiveErrorCount", () -> status.receiveErrorCount, null);
+        builder.addDoubleProperty("transmitErrorCount", () -> status.transmitErrorCount, null);
+        builder.addDoubleProperty("configFailures", this::getFailures, null);
+        builder.addDoubleProperty("outputWrites", MotorOutput::getTotalWrites, null);
+        builder.addDoubleProperty("outputsSuppressed", MotorOutput::getTotalSuppressed, null);
+    }
+}
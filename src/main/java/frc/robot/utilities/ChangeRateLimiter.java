@@ -7,17 +7,43 @@
 
 package frc.robot.utilities;
 
-import java.util.Vector;
+import edu.wpi.first.wpilibj.Timer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
 
 /**
  * Rate limiter class.
+ * A limiter either limits the change each time it is called, or with {@link #perSecond}
+ * limits the change per second using the FPGA clock, so it acts the same however fast it is called.
  */
 public class ChangeRateLimiter {
 
-    private final double rate;
+    // the loop period the first call after a reset is assumed to take
+    public static final double NOMINAL_PERIOD = 0.02;
+    // longer gaps than this (disabled, stalled loop) are treated as this long
+    public static final double MAX_PERIOD = 0.1;
+
+    // limiters are only weakly held, so ones that are no longer used get collected
+    private static final Set<ChangeRateLimiter> allLimiters =
+        Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    // the change allowed away from and towards 0, per call or per second
+    private final double accel;
+    private final double decel;
+    private final boolean timed;
+
     private double old;
+    private double lastTime = Double.NaN;
 
-    public static Vector<ChangeRateLimiter> allLimiters = new Vector<>();
+    private ChangeRateLimiter(double accel, double decel, boolean timed, double startingValue) {
+        this.accel = accel;
+        this.decel = decel;
+        this.timed = timed;
+        old = startingValue;
+        allLimiters.add(this);
+    }
 
     /**
      * new rate limiter with starting value of 0.
@@ -25,9 +51,7 @@ public class ChangeRateLimiter {
      * @param rate the maximum change each time the function is called
      */
     public ChangeRateLimiter(double rate) {
-        this.rate = rate;
-        old = 0;
-        allLimiters.add(this);
+        this(rate, rate, false, 0);
     }
 
     /**
@@ -37,9 +61,28 @@ public class ChangeRateLimiter {
      * @param startingValue the value to start out to allow things to run at full at init
      */
     public ChangeRateLimiter(double rate, double startingValue) {
-        this.rate = rate;
-        old = startingValue;
-        allLimiters.add(this);
+        this(rate, rate, false, startingValue);
+    }
+
+    /**
+     * new rate limiter which limits the change per second, starting at 0.
+     *
+     * @param accel the maximum change per second moving away from 0
+     * @param decel the maximum change per second moving towards 0
+     * @return the rate limiter
+     */
+    public static ChangeRateLimiter perSecond(double accel, double decel) {
+        return new ChangeRateLimiter(accel, decel, true, 0);
+    }
+
+    /**
+     * new rate limiter which limits the change per second, starting at 0.
+     *
+     * @param rate the maximum change per second
+     * @return the rate limiter
+     */
+    public static ChangeRateLimiter perSecond(double rate) {
+        return perSecond(rate, rate);
     }
 
     /**
@@ -49,28 +92,44 @@ public class ChangeRateLimiter {
      * @return the rate-limited value
      */
     public double getRateLimitedValue(double value) {
-        if (value > old + rate) {
-            value = old + rate;
-            old = value;
-        } else if (value < old - rate) {
-            value = old - rate;
-            old = value;
-        } else {
-            old = value;
+        double scale = 1;
+        if (timed) {
+            double now = Timer.getFPGATimestamp();
+            scale = Double.isNaN(lastTime) ? NOMINAL_PERIOD : Math.min(now - lastTime, MAX_PERIOD);
+            lastTime = now;
+        }
+
+        double change = value - old;
+        // a change is away from 0 if it pushes the same way the value already points
+        boolean away = change > 0 ? old >= 0 : old <= 0;
+        double limit = (away ? accel : decel) * scale;
+
+        if (change > limit) {
+            value = old + limit;
+        } else if (change < -limit) {
+            value = old - limit;
         }
 
+        old = value;
         return value;
     }
 
     public void resetOld() {
         old = 0;
+        lastTime = Double.NaN;
     }
 
     /**
      * Resets all rate limiters.
      */
     public static void resetAllChangeRateLimiters() {
-        for (ChangeRateLimiter x : allLimiters) {
+        // copied so limiters aren't reset while holding the lock
+        ArrayList<ChangeRateLimiter> limiters;
+        synchronized (allLimiters) {
+            limiters = new ArrayList<>(allLimiters);
+        }
+
+        for (ChangeRateLimiter x : limiters) {
             x.resetOld();
         }
     }
@@ -6,6 +6,7 @@ import edu.wpi.first.wpilibj.Filesystem;
 import edu.wpi.first.wpilibj2.command.Command;
 import frc.robot.commands.drivetrain.FollowTrajectoryThreaded;
 import frc.robot.subsystems.Drivetrain;
+import frc.robot.utilities.trajectory.CompiledTrajectory;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -113,6 +114,8 @@ public class Functions {
 
     /**
      * creates a trajectory command from a file name.
+     * PathWeaver .path files use the trajectory compiled from them at build time,
+     * anything else is read as PathWeaver json.
      *
      * @param drivetrain the drivetrain subsystem
      * @param fileName   the path to and name of the file
@@ -123,8 +126,31 @@ public class Functions {
             throws IOException {
         Path path = Filesystem.getDeployDirectory().toPath().resolve(fileName);
 
+        String name = path.getFileName().toString();
+        if (name.endsWith(".path")) {
+            return compiledSplineCommand(drivetrain, name.substring(0, name.length() - ".path".length()));
+        }
+
         Trajectory trajectory = TrajectoryUtil.fromPathweaverJson(path);
 
         return new FollowTrajectoryThreaded(drivetrain, trajectory);
     }
+
+    /**
+     * creates a trajectory command from a trajectory compiled at build time.
+     * The trajectories are generated from the paths folder by the compileTrajectories task.
+     *
+     * @param drivetrain the drivetrain subsystem
+     * @param pathName   the name of the path, without .path
+     * @return the FollowTrajectoryThreaded for the path
+     * @throws IOException thrown if the trajectory was not compiled or is not readable
+     */
+    public static Command compiledSplineCommand(Drivetrain drivetrain, String pathName)
+            throws IOException {
+        Path path = Filesystem.getDeployDirectory().toPath()
+            .resolve("trajectories")
+            .resolve(pathName + CompiledTrajectory.EXTENSION);
+
+        return new FollowTrajectoryThreaded(drivetrain, CompiledTrajectory.load(path));
+    }
 }
@@ -0,0 +1,163 @@
+package frc.robot.utilities;
+
+import edu.wpi.first.math.controller.PIDController;
+import frc.robot.subsystems.Drivetrain;
+import frc.robot.utilities.lists.PIDValues;
+
+/**
+ * Holds the drivetrain on a field heading from the {@link PeriodicExecutor} thread.
+ * Vision only sets the heading to hold, by adding the target's yaw to the heading the robot had
+ * when the image was taken. The loop itself closes on the gyro heading from the odometry, so it
+ * runs as fast as the odometry instead of at the camera's frame rate and latency.
+ */
+public class HeadingLock {
+
+    // the odometry's period, only used on its own if the odometry hasn't started
+    public static final double PERIOD_MS = 5;
+    // lower than the odometry's, so it runs after it
+    public static final int PRIORITY = 15;
+
+    private final Drivetrain drivetrain;
+
+    // only touched by the executor thread
+    private final PIDController pid;
+    private final double[] pose = new double[4];
+
+    private final double[] pastPose = new double[5];
+
+    private PeriodicExecutor.Task task;
+
+    private volatile double target = 0;
+    private volatile double forwardPower = 0;
+    private volatile double error = Double.POSITIVE_INFINITY;
+    private volatile boolean hasTarget = false;
+    private volatile boolean resetPending = true;
+
+    /**
+     * Creates a heading lock for a drivetrain.
+     *
+     * @param drivetrain the drivetrain to turn
+     */
+    public HeadingLock(Drivetrain drivetrain) {
+        this.drivetrain = drivetrain;
+
+        pid = new PIDController(
+            PIDValues.HEADING_P, PIDValues.HEADING_I, PIDValues.HEADING_D, PERIOD_MS / 1000);
+    }
+
+    /**
+     * Starts holding the heading.
+     * Nothing is sent to the drivetrain until there is a target.
+     */
+    public void start() {
+        if (task == null || task.isDone()) {
+            resetPending = true;
+
+            // on the odometry's deadlines, so every step sees a pose from the same period
+            PeriodicExecutor executor = PeriodicExecutor.getInstance();
+            PeriodicExecutor.Task odometry = drivetrain.getOdometryTask();
+            if (odometry != null && !odometry.isDone()) {
+                task = executor.scheduleAfter("HeadingLock", odometry, PRIORITY, this::step);
+            } else {
+                task = executor.schedule("HeadingLock", PERIOD_MS, PRIORITY, this::step);
+            }
+        }
+    }
+
+    /**
+     * Stops holding the heading and forgets the target.
+     * The drivetrain is left as it was last set, and isn't touched again once this returns.
+     */
+    public void stop() {
+        // waits for a running step to finish, so nothing is written after this.
+        // no lock is held here, the executor holds the task's lock while it steps
+        if (task != null) {
+            task.cancel();
+        }
+        hasTarget = false;
+        forwardPower = 0;
+        error = Double.POSITIVE_INFINITY;
+    }
+
+    public boolean isRunning() {
+        return task != null && !task.isDone();
+    }
+
+    /**
+     * Sets the heading to hold.
+     *
+     * @param heading the field heading in radians, counter clockwise positive
+     */
+    public void setTarget(double heading) {
+        target = heading;
+        hasTarget = true;
+    }
+
+    /**
+     * Sets the heading to hold from a vision measurement.
+     *
+     * @param horizontalOffset the target's yaw in the image in degrees, clockwise positive
+     * @param captureTime      the FPGA time the image was taken in seconds
+     * @return false if the time is older than the pose history, the target is left as it was
+     */
+    public boolean setTargetFromVision(double horizontalOffset, double captureTime) {
+        if (!drivetrain.getPoseAt(captureTime, pastPose)) {
+            return false;
+        }
+
+        setTarget(pastPose[PoseHistory.HEADING] - Math.toRadians(horizontalOffset));
+        return true;
+    }
+
+    /**
+     * Sets the power added to both sides, so the robot can drive while holding the heading.
+     *
+     * @param power the forward power
+     */
+    public void setForwardPower(double power) {
+        forwardPower = power;
+    }
+
+    /**
+     * Gets how far the robot is from the heading to hold.
+     *
+     * @return the error in degrees, counter clockwise positive, or infinity if there is no target
+     */
+    public double getError() {
+        return Math.toDegrees(error);
+    }
+
+    /**
+     * Checks if the robot is holding the heading.
+     *
+     * @param tolerance the allowed error in degrees
+     * @return true if there is a target and the robot is within the tolerance of it
+     */
+    public boolean isAligned(double tolerance) {
+        return hasTarget && Math.abs(getError()) <= tolerance;
+    }
+
+    // runs on the executor thread
+    private void step() {
+        if (resetPending) {
+            resetPending = false;
+            pid.reset();
+        }
+
+        if (!hasTarget) {
+            return;
+        }
+
+        drivetrain.readPose(pose);
+
+        double headingError = Math.IEEEremainder(target - pose[2], 2 * Math.PI);
+        error = headingError;
+
+        // measures against 0 so the error always takes the short way round
+        double turn = -pid.calculate(headingError, 0);
+        double forward = forwardPower;
+
+        drivetrain.setLeftMotorPower(forward - turn);
+        drivetrain.setRightMotorPower(forward + turn);
+    }
+}
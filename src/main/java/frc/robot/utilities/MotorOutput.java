@@ -0,0 +1,181 @@
+package frc.robot.utilities;
+
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.CANSparkMax.ControlType;
+import com.revrobotics.SparkMaxPIDController;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends outputs to a Spark Max only when they change.
+ * Commands set their outputs every loop, usually to the same value as the loop before,
+ * and each of those is a CAN frame. The last output sent is kept, and an output that
+ * matches it is dropped unless the keep alive has run out.
+ *
+ * <p>All of a motor's outputs must go through its MotorOutput, otherwise the cached
+ * output won't match what the motor is actually doing.
+ */
+public class MotorOutput {
+
+    // how often an unchanged output is sent anyway, in case the motor missed it or was reset
+    public static final long KEEP_ALIVE_NS = 100_000_000;
+
+    private static final LongAdder totalWrites = new LongAdder();
+    private static final LongAdder totalSuppressed = new LongAdder();
+
+    private final CANSparkMax motor;
+    private final SparkMaxPIDController pid;
+
+    // the last output sent, type is null until something is sent
+    private ControlType lastType = null;
+    private double lastValue;
+    private int lastSlot;
+    private long lastWriteTime;
+
+    private long writes = 0;
+    private long suppressed = 0;
+
+    /**
+     * Creates a new motor output.
+     *
+     * @param motor the motor to send outputs to
+     * @param pid   the motor's PID controller
+     */
+    public MotorOutput(CANSparkMax motor, SparkMaxPIDController pid) {
+        this.motor = motor;
+        this.pid = pid;
+    }
+
+    /**
+     * Creates a new motor output.
+     *
+     * @param motor the motor to send outputs to
+     */
+    public MotorOutput(CANSparkMax motor) {
+        this(motor, motor.getPIDController());
+    }
+
+    /**
+     * Sets the power of the motor.
+     *
+     * @param power the power from -1 to 1
+     */
+    public synchronized void set(double power) {
+        if (shouldWrite(ControlType.kDutyCycle, power, 0)) {
+            motor.set(power);
+        }
+    }
+
+    /**
+     * Sets the voltage of the motor.
+     * The Spark Max compensates for the battery itself, so the output only changes
+     * when the requested voltage does.
+     *
+     * @param volts the voltage
+     */
+    public synchronized void setVoltage(double volts) {
+        if (shouldWrite(ControlType.kVoltage, volts, 0)) {
+            pid.setReference(volts, ControlType.kVoltage);
+        }
+    }
+
+    /**
+     * Sets the setpoint of the motor's PID controller, using slot 0.
+     *
+     * @param value the setpoint, in the units of the control type
+     * @param type  the control type
+     */
+    public void setReference(double value, ControlType type) {
+        setReference(value, type, 0);
+    }
+
+    /**
+     * Sets the setpoint of the motor's PID controller.
+     *
+     * @param value the setpoint, in the units of the control type
+     * @param type  the control type
+     * @param slot  the PID slot to use
+     */
+    public synchronized void setReference(double value, ControlType type, int slot) {
+        if (shouldWrite(type, value, slot)) {
+            pid.setReference(value, type, slot);
+        }
+    }
+
+    /**
+     * Stops the motor. This is always sent.
+     */
+    public synchronized void stopMotor() {
+        motor.stopMotor();
+        record(ControlType.kDutyCycle, 0, 0);
+    }
+
+    /**
+     * Forgets the last output, so the next one is always sent.
+     * Use this after the motor has been reset or reconfigured.
+     */
+    public synchronized void invalidate() {
+        lastType = null;
+    }
+
+    private boolean shouldWrite(ControlType type, double value, int slot) {
+        long now = System.nanoTime();
+
+        if (type == lastType
+            && value == lastValue
+            && slot == lastSlot
+            && now - lastWriteTime < KEEP_ALIVE_NS) {
+            suppressed++;
+            totalSuppressed.increment();
+            return false;
+        }
+
+        record(type, value, slot);
+        return true;
+    }
+
+    private void record(ControlType type, double value, int slot) {
+        lastType = type;
+        lastValue = value;
+        lastSlot = slot;
+        lastWriteTime = System.nanoTime();
+
+        writes++;
+        totalWrites.increment();
+    }
+
+    /**
+     * Gets the number of outputs sent to this motor.
+     *
+     * @return the number of writes
+     */
+    public synchronized long getWrites() {
+        return writes;
+    }
+
+    /**
+     * Gets the number of outputs dropped because they matched the last one.
+     *
+     * @return the number of suppressed writes
+     */
+    public synchronized long getSuppressed() {
+        return suppressed;
+    }
+
+    /**
+     * Gets the number of outputs sent to every motor.
+     *
+     * @return the number of writes
+     */
+    public static long getTotalWrites() {
+        return totalWrites.sum();
+    }
+
+    /**
+     * Gets the number of outputs dropped across every motor.
+     *
+     * @return the number of suppressed writes
+     */
+    public static long getTotalSuppressed() {
+        return totalSuppressed.sum();
+    }
+}
@@ -0,0 +1,282 @@
+package frc.robot.utilities;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.DifferentialDriveOdometry;
+import edu.wpi.first.math.kinematics.DifferentialDriveWheelSpeeds;
+import edu.wpi.first.wpilibj.Timer;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Runs differential drive odometry on the {@link PeriodicExecutor} thread.
+ * The odometry is only ever touched by the executor thread. Each new pose and wheel speed
+ * sample is published through a seqlock, so readers never block the integrator
+ * and the integrator never waits on a reader.
+ * Every sample is also kept in a {@link PoseHistory} so past poses can be looked up.
+ *
+ * <p>Corrections (from vision) are kept as a separate offset added to every pose on the way out.
+ * A translation shifts every pose after it by the same amount, so adding the offset to the
+ * history is the same as replaying the odometry forward from when the correction was measured.
+ */
+public class OdometryIntegrator {
+
+    // over a second of history even at 500hz
+    public static final int HISTORY_SIZE = 1024;
+
+    private final DoubleSupplier heading;
+    private final DoubleSupplier leftDistance;
+    private final DoubleSupplier rightDistance;
+    private final DoubleSupplier leftSpeed;
+    private final DoubleSupplier rightSpeed;
+
+    // only touched by the executor thread
+    private final DifferentialDriveOdometry odometry;
+    private double leftBase;
+    private double rightBase;
+
+    // set by any thread, applied by the executor thread on its next step
+    private final AtomicReference<Pose2d> pendingReset = new AtomicReference<>();
+
+    private final PoseHistory history = new PoseHistory(HISTORY_SIZE);
+
+    private final AtomicReference<Translation2d> correction =
+        new AtomicReference<>(new Translation2d());
+
+    private volatile PeriodicExecutor.Task task;
+
+    // the published sample, odd while it is being written
+    private volatile long sequence = 0;
+    private double timestamp;
+    private double x;
+    private double y;
+    private double angle;
+    private double leftMetersPerSecond;
+    private double rightMetersPerSecond;
+
+    /**
+     * Creates a new odometry integrator starting at the origin.
+     *
+     * @param heading       the heading of the robot in degrees, counter clockwise positive
+     * @param leftDistance  the distance the left side has traveled in meters
+     * @param rightDistance the distance the right side has traveled in meters
+     * @param leftSpeed     the speed of the left side in meters per second
+     * @param rightSpeed    the speed of the right side in meters per second
+     */
+    public OdometryIntegrator(
+        DoubleSupplier heading,
+        DoubleSupplier leftDistance,
+        DoubleSupplier rightDistance,
+        DoubleSupplier leftSpeed,
+        DoubleSupplier rightSpeed) {
+        this.heading = heading;
+        this.leftDistance = leftDistance;
+        this.rightDistance = rightDistance;
+        this.leftSpeed = leftSpeed;
+        this.rightSpeed = rightSpeed;
+
+        leftBase = leftDistance.getAsDouble();
+        rightBase = rightDistance.getAsDouble();
+        odometry = new DifferentialDriveOdometry(
+            Rotation2d.fromDegrees(heading.getAsDouble()));
+    }
+
+    /**
+     * Starts integrating on the executor thread.
+     *
+     * @param periodMs the period in ms to integrate at
+     * @param priority the priority of the task on the executor
+     */
+    public void start(double periodMs, int priority) {
+        if (task == null || task.isDone()) {
+            task = PeriodicExecutor.getInstance().schedule("Odometry", periodMs, priority, this::step);
+        }
+    }
+
+    /**
+     * Gets the integrating task, so other tasks can be scheduled after it.
+     *
+     * @return the task, or null if it has never been started
+     */
+    public PeriodicExecutor.Task getTask() {
+        return task;
+    }
+
+    /**
+     * Stops integrating.
+     */
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+        }
+    }
+
+    /**
+     * Sets the current pose.
+     * The reset is applied on the next step, until then readers get the reset pose.
+     *
+     * @param pose the new pose
+     */
+    public void resetPose(Pose2d pose) {
+        correction.set(new Translation2d());
+        pendingReset.set(pose);
+    }
+
+    /**
+     * Moves every pose, past and future, by an offset.
+     *
+     * @param dx the distance to move in x in meters
+     * @param dy the distance to move in y in meters
+     */
+    public void correct(double dx, double dy) {
+        correction.updateAndGet(offset -> new Translation2d(offset.getX() + dx, offset.getY() + dy));
+    }
+
+    /**
+     * Gets the total offset added to the odometry by corrections since the last reset.
+     *
+     * @return the offset in meters
+     */
+    public Translation2d getCorrection() {
+        return correction.get();
+    }
+
+    // one integration step, only ever run by the executor thread
+    private void step() {
+        double now = Timer.getFPGATimestamp();
+        Rotation2d rotation = Rotation2d.fromDegrees(heading.getAsDouble());
+        double left = leftDistance.getAsDouble();
+        double right = rightDistance.getAsDouble();
+
+        Pose2d reset = pendingReset.get();
+        if (reset != null) {
+            // the odometry starts counting distance from 0 again after a reset
+            leftBase = left;
+            rightBase = right;
+            odometry.resetPosition(reset, rotation);
+            history.clear();
+        }
+
+        Pose2d pose = odometry.update(rotation, left - leftBase, right - rightBase);
+
+        Translation2d offset = correction.get();
+        publish(now, pose, offset, leftSpeed.getAsDouble(), rightSpeed.getAsDouble());
+
+        // the history is kept uncorrected, the latest offset is added when it is read
+        history.add(
+            now,
+            pose.getX(),
+            pose.getY(),
+            pose.getRotation().getRadians(),
+            left - leftBase,
+            right - rightBase);
+
+        // only cleared once the reset pose is published, so readers never see the old pose
+        // a newer reset set while this step was running is left for the next step
+        if (reset != null) {
+            pendingReset.compareAndSet(reset, null);
+        }
+    }
+
+    private void publish(double now, Pose2d pose, Translation2d offset, double left, double right) {
+        long seq = sequence;
+        sequence = seq + 1;
+        // stops the writes below from being seen before the sequence is marked odd
+        VarHandle.storeStoreFence();
+
+        timestamp = now;
+        x = pose.getX() + offset.getX();
+        y = pose.getY() + offset.getY();
+        angle = pose.getRotation().getRadians();
+        leftMetersPerSecond = left;
+        rightMetersPerSecond = right;
+
+        sequence = seq + 2;
+    }
+
+    /**
+     * Reads the latest pose without allocating.
+     * Retries if the integrator published mid read, never blocks.
+     *
+     * @param out array of at least 4, filled with x (m), y (m), heading (rad)
+     *            and the time the pose was sampled at (s)
+     */
+    public void readPose(double[] out) {
+        Pose2d reset = pendingReset.get();
+        if (reset != null) {
+            out[0] = reset.getX();
+            out[1] = reset.getY();
+            out[2] = reset.getRotation().getRadians();
+            out[3] = Timer.getFPGATimestamp();
+            return;
+        }
+
+        long seq;
+        do {
+            seq = sequence;
+            out[0] = x;
+            out[1] = y;
+            out[2] = angle;
+            out[3] = timestamp;
+            VarHandle.loadLoadFence();
+        } while ((seq & 1) != 0 || seq != sequence);
+    }
+
+    /**
+     * Reads the latest wheel speeds without allocating.
+     *
+     * @param out array of at least 2, filled with the left and right speed in m/s
+     */
+    public void readWheelSpeeds(double[] out) {
+        long seq;
+        do {
+            seq = sequence;
+            out[0] = leftMetersPerSecond;
+            out[1] = rightMetersPerSecond;
+            VarHandle.loadLoadFence();
+        } while ((seq & 1) != 0 || seq != sequence);
+    }
+
+    /**
+     * Looks up where the robot was at a past time.
+     * Used to line up measurements that were taken in the past, like vision.
+     *
+     * @param timestamp the FPGA time in seconds
+     * @param out       array of at least 5, see {@link PoseHistory#sample(double, double[])}
+     * @return false if the time is older than the history
+     */
+    public boolean getPoseAt(double timestamp, double[] out) {
+        if (!history.sample(timestamp, out)) {
+            return false;
+        }
+
+        Translation2d offset = correction.get();
+        out[PoseHistory.X] += offset.getX();
+        out[PoseHistory.Y] += offset.getY();
+        return true;
+    }
+
+    /**
+     * Gets the latest pose.
+     *
+     * @return a new pose, safe to keep
+     */
+    public Pose2d getPose() {
+        double[] pose = new double[4];
+        readPose(pose);
+        return new Pose2d(pose[0], pose[1], new Rotation2d(pose[2]));
+    }
+
+    /**
+     * Gets the latest wheel speeds.
+     *
+     * @return new wheel speeds, safe to keep
+     */
+    public DifferentialDriveWheelSpeeds getWheelSpeeds() {
+        double[] speeds = new double[2];
+        readWheelSpeeds(speeds);
+        return new DifferentialDriveWheelSpeeds(speeds[0], speeds[1]);
+    }
+}
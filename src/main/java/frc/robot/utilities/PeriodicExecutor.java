@@ -0,0 +1,345 @@
+package frc.robot.utilities;
+
+import edu.wpi.first.wpilibj.Threads;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Shared executor which runs periodic tasks on a single pre-started thread.
+ * Tasks are scheduled against absolute deadlines, so execution time and wake up
+ * latency never accumulate into drift the way a relative sleep does.
+ */
+public class PeriodicExecutor {
+
+    private static PeriodicExecutor instance = null;
+
+    // real time priority for the executor thread (1-99, higher runs first)
+    public static final int REALTIME_PRIORITY = 40;
+
+    private final Thread thread;
+
+    // copy on write so the executor thread can iterate without locking or allocating
+    private volatile Task[] tasks = new Task[0];
+
+    /**
+     * Gets the executor instance using the singleton pattern.
+     * The thread is started the first time this is called.
+     *
+     * @return the executor instance
+     */
+    public static synchronized PeriodicExecutor getInstance() {
+        if (instance == null) {
+            instance = new PeriodicExecutor();
+        }
+
+        return instance;
+    }
+
+    private PeriodicExecutor() {
+        thread = new Thread(this::run, "Periodic executor thread");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MAX_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * Schedules a task to run every period until it reports it is done or is cancelled.
+     * The first run happens as soon as possible.
+     *
+     * @param name     the name of the task, used for telemetry
+     * @param periodMs the period in ms for the task to be run at
+     * @param priority which task runs first when two deadlines are equal (higher first)
+     * @param step     runs the task once, returns true when the task is finished
+     * @return the handle for the scheduled task
+     * @throws IllegalArgumentException if the period is under 1 ns
+     */
+    public Task schedule(String name, double periodMs, int priority, BooleanSupplier step) {
+        long period = (long) (periodMs * 1_000_000);
+        // a zero period would divide by zero on the executor thread and stop every task
+        if (period <= 0) {
+            throw new IllegalArgumentException(name + " period must be positive, was " + periodMs + " ms");
+        }
+
+        Task task = new Task(name, period, priority, step);
+        task.deadline = System.nanoTime();
+
+        add(task);
+        return task;
+    }
+
+    /**
+     * Schedules a task that runs every period until it is cancelled.
+     *
+     * @param name     the name of the task, used for telemetry
+     * @param periodMs the period in ms for the task to be run at
+     * @param priority which task runs first when two deadlines are equal (higher first)
+     * @param step     runs the task once
+     * @return the handle for the scheduled task
+     */
+    public Task schedule(String name, double periodMs, int priority, Runnable step) {
+        return schedule(name, periodMs, priority, () -> {
+            step.run();
+            return false;
+        });
+    }
+
+    /**
+     * Schedules a task to run straight after another task, every time it runs.
+     * It takes the other task's period and deadlines, and a lower priority breaks the tie
+     * between them. Deadlines are only ordered by priority when they are equal, so two tasks
+     * scheduled separately can be out of phase by up to a whole period.
+     *
+     * @param name     the name of the task, used for telemetry
+     * @param leader   the task to run after
+     * @param priority the priority of the task, lower than the leader's
+     * @param step     runs the task once
+     * @return the handle for the scheduled task
+     * @throws IllegalArgumentException if the priority isn't lower than the leader's
+     */
+    public Task scheduleAfter(String name, Task leader, int priority, Runnable step) {
+        if (priority >= leader.priority) {
+            throw new IllegalArgumentException(name + " priority must be lower than " + leader.name + "'s");
+        }
+
+        Task task = new Task(name, leader.period, priority, () -> {
+            step.run();
+            return false;
+        });
+        // the leader holds its lock while it runs, so this is its next deadline
+        synchronized (leader) {
+            task.deadline = leader.deadline;
+        }
+
+        add(task);
+        return task;
+    }
+
+    /**
+     * Gets all the tasks that are currently scheduled.
+     *
+     * @return the scheduled tasks
+     */
+    public Task[] getTasks() {
+        return tasks;
+    }
+
+    private synchronized void add(Task task) {
+        Task[] updated = new Task[tasks.length + 1];
+        System.arraycopy(tasks, 0, updated, 0, tasks.length);
+        updated[tasks.length] = task;
+        tasks = updated;
+
+        // wakes the thread so it can pick up the new deadline
+        LockSupport.unpark(thread);
+    }
+
+    private synchronized void remove(Task task) {
+        int index = -1;
+        for (int i = 0; i < tasks.length; i++) {
+            if (tasks[i] == task) {
+                index = i;
+                break;
+            }
+        }
+
+        if (index < 0) {
+            return;
+        }
+
+        Task[] updated = new Task[tasks.length - 1];
+        System.arraycopy(tasks, 0, updated, 0, index);
+        System.arraycopy(tasks, index + 1, updated, index, tasks.length - index - 1);
+        tasks = updated;
+    }
+
+    // the executor loop, always runs the task with the earliest deadline
+    private void run() {
+        Threads.setCurrentThreadPriority(true, REALTIME_PRIORITY);
+
+        while (true) {
+            Task next = null;
+            for (Task task : tasks) {
+                if (next == null
+                        || task.deadline < next.deadline
+                        || (task.deadline == next.deadline && task.priority > next.priority)) {
+                    next = task;
+                }
+            }
+
+            if (next == null) {
+                // nothing to do until a task is added
+                LockSupport.park(this);
+                continue;
+            }
+
+            long now = System.nanoTime();
+            long wait = next.deadline - now;
+
+            if (wait > 0) {
+                // re-evaluates after waking in case a task was added or cancelled
+                LockSupport.parkNanos(this, wait);
+                continue;
+            }
+
+            if (next.runOnce(now)) {
+                remove(next);
+            }
+        }
+    }
+
+    /**
+     * A task scheduled on the executor.
+     * Also keeps the timing statistics for the task.
+     */
+    public class Task {
+        private final String name;
+        private final long period;
+        private final int priority;
+        private final BooleanSupplier step;
+
+        // only touched by the executor thread
+        private long deadline;
+
+        private volatile boolean done = false;
+
+        // statistics, written only by the executor thread
+        private volatile long runs = 0;
+        private volatile long overruns = 0;
+        private volatile long lastJitter = 0;
+        private volatile long maxJitter = 0;
+        private volatile long totalJitter = 0;
+        private volatile long maxExecuteTime = 0;
+
+        private Task(String name, long period, int priority, BooleanSupplier step) {
+            this.name = name;
+            this.period = period;
+            this.priority = priority;
+            this.step = step;
+        }
+
+        /**
+         * Runs the task once and works out the next deadline.
+         *
+         * @param now the time the task was started at in ns
+         * @return true if the task is done and should be removed
+         */
+        private synchronized boolean runOnce(long now) {
+            if (done) {
+                return true;
+            }
+
+            long jitter = now - deadline;
+            lastJitter = jitter;
+            totalJitter += jitter;
+            if (jitter > maxJitter) {
+                maxJitter = jitter;
+            }
+
+            boolean finished;
+            try {
+                finished = step.getAsBoolean();
+            } catch (Throwable e) {
+                // a broken task should not take the whole executor down with it,
+                // errors included since every other task runs on this thread too
+                System.out.println(name + " threw an exception and was stopped");
+                e.printStackTrace();
+                finished = true;
+            }
+
+            long end = System.nanoTime();
+            long executeTime = end - now;
+            if (executeTime > maxExecuteTime) {
+                maxExecuteTime = executeTime;
+            }
+
+            runs++;
+
+            // the next deadline is always relative to the last deadline, not the end time
+            deadline += period;
+
+            if (end > deadline) {
+                // skips any periods that were missed instead of running back to back
+                overruns++;
+                deadline += ((end - deadline) / period + 1) * period;
+            }
+
+            if (finished) {
+                done = true;
+            }
+
+            return done;
+        }
+
+        /**
+         * Stops the task.
+         * If the task is currently running this waits for that run to finish,
+         * so the task is guaranteed not to be running once this returns.
+         * Safe to call more than once.
+         */
+        public void cancel() {
+            synchronized (this) {
+                done = true;
+            }
+
+            remove(this);
+        }
+
+        /**
+         * Checks if the task has finished or was cancelled.
+         *
+         * @return true if the task will not run again
+         */
+        public boolean isDone() {
+            return done;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getRuns() {
+            return runs;
+        }
+
+        public long getOverruns() {
+            return overruns;
+        }
+
+        /**
+         * Gets how late the last run started compared to its deadline.
+         *
+         * @return the jitter in ms
+         */
+        public double getLastJitterMs() {
+            return lastJitter / 1_000_000.0;
+        }
+
+        /**
+         * Gets the latest any run has started compared to its deadline.
+         *
+         * @return the jitter in ms
+         */
+        public double getMaxJitterMs() {
+            return maxJitter / 1_000_000.0;
+        }
+
+        /**
+         * Gets how late runs start on average compared to their deadline.
+         *
+         * @return the jitter in ms
+         */
+        public double getAverageJitterMs() {
+            long count = runs;
+            return count == 0 ? 0 : (totalJitter / (double) count) / 1_000_000.0;
+        }
+
+        /**
+         * Gets the longest time a single run has taken.
+         *
+         * @return the time in ms
+         */
+        public double getMaxExecuteTimeMs() {
+            return maxExecuteTime / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package frc.robot.utilities;
+
+import java.lang.invoke.VarHandle;
+
+/**
+ * Ring buffer of timestamped odometry samples, used to look up where the robot was in the past.
+ * Everything is stored in primitive arrays, so adding and reading never allocates.
+ *
+ * <p>There must only ever be one thread adding samples. Any number of threads can read,
+ * a read which was overwritten while it was running is retried.
+ */
+public class PoseHistory {
+
+    // slots in each sample
+    public static final int
+        X = 0,
+        Y = 1,
+        HEADING = 2,
+        LEFT_DISTANCE = 3,
+        RIGHT_DISTANCE = 4;
+
+    private final int capacity;
+    private final int mask;
+
+    private final double[] timestamps;
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] headings;
+    private final double[] leftDistances;
+    private final double[] rightDistances;
+
+    // total samples ever added, the newest sample is head - 1
+    private volatile long head = 0;
+    // the first sample after the last clear
+    private volatile long start = 0;
+
+    /**
+     * Creates a new pose history.
+     *
+     * @param capacity the number of samples to keep, rounded up to a power of two
+     */
+    public PoseHistory(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+
+        this.capacity = size;
+        this.mask = size - 1;
+
+        timestamps = new double[size];
+        xs = new double[size];
+        ys = new double[size];
+        headings = new double[size];
+        leftDistances = new double[size];
+        rightDistances = new double[size];
+    }
+
+    /**
+     * Adds a sample, overwriting the oldest one if the buffer is full.
+     * Timestamps must never go backwards.
+     *
+     * @param timestamp     the FPGA time of the sample in seconds
+     * @param x             the x position in meters
+     * @param y             the y position in meters
+     * @param heading       the heading in radians
+     * @param leftDistance  the distance the left side has traveled in meters
+     * @param rightDistance the distance the right side has traveled in meters
+     */
+    public void add(
+        double timestamp,
+        double x,
+        double y,
+        double heading,
+        double leftDistance,
+        double rightDistance) {
+        long index = head;
+        int slot = (int) (index & mask);
+
+        timestamps[slot] = timestamp;
+        xs[slot] = x;
+        ys[slot] = y;
+        headings[slot] = heading;
+        leftDistances[slot] = leftDistance;
+        rightDistances[slot] = rightDistance;
+
+        // publishes the sample, the volatile write makes the slot visible first
+        head = index + 1;
+    }
+
+    /**
+     * Forgets every sample, used when the pose is reset so old poses aren't blended with new ones.
+     * Only call this from the thread adding samples.
+     */
+    public void clear() {
+        start = head;
+    }
+
+    /**
+     * Gets the number of samples that can be looked up.
+     *
+     * @return the number of samples
+     */
+    public int size() {
+        long newest = head;
+        return (int) (newest - oldestIndex(newest));
+    }
+
+    /**
+     * Looks up where the robot was at a time, interpolating between the samples either side.
+     * Times newer than the newest sample get the newest sample.
+     *
+     * @param timestamp the FPGA time in seconds
+     * @param out       array of at least 5, filled with x, y, heading, left distance and right
+     *                  distance (indexed by the constants in this class)
+     * @return false if the time is older than the history or the history is empty
+     */
+    public boolean sample(double timestamp, double[] out) {
+        while (true) {
+            long newest = head;
+            long oldest = oldestIndex(newest);
+
+            if (newest <= oldest) {
+                return false;
+            }
+
+            // finds the last sample at or before the timestamp
+            long low = oldest;
+            long high = newest - 1;
+
+            if (timestamps[slot(low)] > timestamp) {
+                if (stillValid(low)) {
+                    return false;
+                }
+                continue;
+            }
+
+            while (low < high) {
+                long middle = (low + high + 1) >>> 1;
+                if (timestamps[slot(middle)] <= timestamp) {
+                    low = middle;
+                } else {
+                    high = middle - 1;
+                }
+            }
+
+            int before = slot(low);
+
+            if (low == newest - 1) {
+                copy(before, out);
+            } else {
+                int after = slot(low + 1);
+
+                double span = timestamps[after] - timestamps[before];
+                double t = span <= 0 ? 0 : (timestamp - timestamps[before]) / span;
+
+                out[X] = interpolate(xs[before], xs[after], t);
+                out[Y] = interpolate(ys[before], ys[after], t);
+                out[HEADING] = headings[before]
+                    + Math.IEEEremainder(headings[after] - headings[before], 2 * Math.PI) * t;
+                out[LEFT_DISTANCE] = interpolate(leftDistances[before], leftDistances[after], t);
+                out[RIGHT_DISTANCE] = interpolate(rightDistances[before], rightDistances[after], t);
+            }
+
+            // retries if the writer lapped the samples while they were being read
+            if (stillValid(low)) {
+                return true;
+            }
+        }
+    }
+
+    // the oldest sample that can't be being overwritten by the writer
+    private long oldestIndex(long newest) {
+        return Math.max(start, newest - capacity + 1);
+    }
+
+    private boolean stillValid(long index) {
+        VarHandle.loadLoadFence();
+        return index >= oldestIndex(head);
+    }
+
+    private int slot(long index) {
+        return (int) (index & mask);
+    }
+
+    private void copy(int slot, double[] out) {
+        out[X] = xs[slot];
+        out[Y] = ys[slot];
+        out[HEADING] = headings[slot];
+        out[LEFT_DISTANCE] = leftDistances[slot];
+        out[RIGHT_DISTANCE] = rightDistances[slot];
+    }
+
+    private static double interpolate(double start, double end, double t) {
+        return start + (end - start) * t;
+    }
+}
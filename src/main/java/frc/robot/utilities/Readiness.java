@@ -0,0 +1,17 @@
+package frc.robot.utilities;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Interface for anything with slow startup work that is done in the background.
+ * The future completes once the startup work has finished, even if it failed,
+ * so a broken sensor doesn't stop the rest of the robot. Failures are shown by the
+ * {@link StartupOrchestrator}.
+ */
+public interface Readiness {
+    CompletableFuture<Void> getReadiness();
+
+    default boolean isReady() {
+        return getReadiness().isDone();
+    }
+}
@@ -1,14 +1,14 @@
 package frc.robot.utilities;
 
-import java.util.Arrays;
+import frc.robot.utilities.stats.WindowedStats;
 
 /**
  * Gets a running average of a value.
+ * Backed by {@link WindowedStats}, so updating and reading are O(1) and never allocate.
  */
 public class RollingAverage {
 
-    private final Double[] rollingAverageArray;
-    private int rollingTarget;
+    private final WindowedStats stats;
     private boolean initialized;
     private final boolean fill;
 
@@ -17,17 +17,18 @@ public class RollingAverage {
      *
      * @param size the number of values you want to average
      * @param fill true will fill the array with the first value input on the first update,
-     *             false will fill the array with 0's
+     *             false will fill the array with 0's, then add the first value on top
      */
     public RollingAverage(int size, boolean fill) {
-        rollingAverageArray = new Double[size];
+        stats = new WindowedStats(size);
+        stats.fill(0);
 
         initialized = false;
         this.fill = fill;
     }
 
     public void set(double value) {
-        Arrays.fill(rollingAverageArray, value);
+        stats.fill(value);
     }
 
     public void reset() {
@@ -45,12 +46,9 @@ public class RollingAverage {
             set(fill ? value : 0.0);
 
             initialized = true;
-
-        } else {
-            rollingAverageArray[rollingTarget] = value;
         }
 
-        rollingTarget = (rollingTarget + 1) % rollingAverageArray.length;
+        stats.add(value);
     }
 
     /**
@@ -59,12 +57,15 @@ public class RollingAverage {
      * @return the average
      */
     public double getAverage() {
-        double value = 0;
-        for (Double d : rollingAverageArray) {
-            value += d;
-        }
+        return stats.getMean();
+    }
 
-        value /= rollingAverageArray.length;
-        return value;
+    /**
+     * Gets the standard deviation of the values being averaged.
+     *
+     * @return the standard deviation
+     */
+    public double getStandardDeviation() {
+        return stats.getStandardDeviation();
     }
 }
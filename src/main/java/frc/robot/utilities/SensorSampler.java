@@ -0,0 +1,103 @@
+package frc.robot.utilities;
+
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.utilities.functionalinterfaces.SensorSource;
+import frc.robot.utilities.perf.LoopProfiler;
+import java.util.ArrayList;
+
+/**
+ * Reads every sensor once at the start of each scheduler cycle.
+ * The values are written into a back buffer which is swapped in once every source has run,
+ * so a snapshot never changes while it is being read during the cycle.
+ *
+ * <p>The two buffers are reused, so a snapshot is overwritten two cycles after it was taken.
+ * That is only safe on the thread which samples (the main robot thread), so get() and sample()
+ * throw on any other thread. Don't keep a snapshot past the cycle it was got in.
+ */
+public class SensorSampler {
+
+    private static SensorSampler instance = null;
+
+    private final ArrayList<SensorSource> sources = new ArrayList<>();
+
+    // only touched by the main robot thread
+    private SensorSnapshot current = new SensorSnapshot();
+    private SensorSnapshot next = new SensorSnapshot();
+
+    // the thread which first sampled, null until then
+    private volatile Thread owner;
+
+    private final LoopProfiler.Section sampleSection =
+        LoopProfiler.getInstance().section("SensorSampler.sample()");
+
+    /**
+     * Gets the sampler instance using the singleton pattern.
+     *
+     * @return the sampler instance
+     */
+    public static synchronized SensorSampler getInstance() {
+        if (instance == null) {
+            instance = new SensorSampler();
+        }
+
+        return instance;
+    }
+
+    private SensorSampler() {
+    }
+
+    /**
+     * Adds a source to be read every cycle.
+     * Sources are read in the order they are added.
+     *
+     * @param source the source
+     */
+    public void register(SensorSource source) {
+        sources.add(source);
+    }
+
+    /**
+     * Reads every source and publishes the new snapshot.
+     * Should be called once at the start of each cycle, before the scheduler runs.
+     */
+    public void sample() {
+        if (owner == null) {
+            owner = Thread.currentThread();
+        }
+        checkThread();
+
+        sampleSection.start();
+
+        SensorSnapshot snapshot = next;
+        snapshot.setTimestamp(Timer.getFPGATimestamp());
+
+        for (int i = 0; i < sources.size(); i++) {
+            sources.get(i).sample(snapshot);
+        }
+
+        next = current;
+        current = snapshot;
+
+        sampleSection.stop();
+    }
+
+    /**
+     * Gets the snapshot for this cycle.
+     * Only call this from the main robot thread, and don't keep it past this cycle.
+     *
+     * @return the current snapshot
+     * @throws IllegalStateException if called from a thread other than the one which samples
+     */
+    public SensorSnapshot get() {
+        checkThread();
+        return current;
+    }
+
+    private void checkThread() {
+        Thread sampler = owner;
+        if (sampler != null && sampler != Thread.currentThread()) {
+            throw new IllegalStateException(
+                "sensor snapshots are reused, only read them on " + sampler.getName());
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package frc.robot.utilities;
+
+import frc.robot.devices.ColorSensor.BallColor;
+
+/**
+ * Every sensor value read at the start of a scheduler cycle.
+ * Subsystems and commands should read from the current snapshot instead of the hardware,
+ * so every reader sees the same values and each sensor is only read once per cycle.
+ *
+ * <p>Only the sensor sources should call the setters, everything else should treat
+ * a snapshot as read only. A snapshot is reused two cycles later, so don't keep it
+ * past the end of the cycle.
+ */
+public class SensorSnapshot {
+
+    private double timestamp;
+
+    // drivetrain
+    private double leftDrivePosition;
+    private double rightDrivePosition;
+    private double leftDriveRPM;
+    private double rightDriveRPM;
+
+    // gyro
+    private double gyroAngle;
+    private double gyroRoll;
+
+    // shooter
+    private double shooterRPM;
+
+    // conveyor
+    private double beltRPM;
+    private double indexRPM;
+    private double lidarDistance;
+    private BallColor ballColor = BallColor.UNKNOWN;
+    private double colorSensorProximity;
+
+    // targeting camera
+    private boolean targetVisible;
+    private double targetHorizontalOffset;
+    private double targetVerticalOffset;
+    private double targetCaptureTime;
+    private long targetFrame;
+
+    /**
+     * Gets the time the snapshot was taken.
+     *
+     * @return the FPGA time in seconds
+     */
+    public double getTimestamp() {
+        return timestamp;
+    }
+
+    void setTimestamp(double timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Gets the raw position of the left drive encoder.
+     *
+     * @return position of motor in rotations
+     */
+    public double getLeftDrivePosition() {
+        return leftDrivePosition;
+    }
+
+    /**
+     * Gets the raw position of the right drive encoder.
+     *
+     * @return position of motor in rotations
+     */
+    public double getRightDrivePosition() {
+        return rightDrivePosition;
+    }
+
+    /**
+     * Records the raw position of the drive encoders.
+     *
+     * @param left  the left position in rotations
+     * @param right the right position in rotations
+     */
+    public void setDrivePositions(double left, double right) {
+        leftDrivePosition = left;
+        rightDrivePosition = right;
+    }
+
+    public double getLeftDriveRPM() {
+        return leftDriveRPM;
+    }
+
+    public double getRightDriveRPM() {
+        return rightDriveRPM;
+    }
+
+    /**
+     * Records the speed of the drive motors.
+     *
+     * @param left  the left speed in RPM
+     * @param right the right speed in RPM
+     */
+    public void setDriveRPMs(double left, double right) {
+        leftDriveRPM = left;
+        rightDriveRPM = right;
+    }
+
+    /**
+     * Gets the continuous angle of the gyro, clockwise positive.
+     *
+     * @return the angle in degrees
+     */
+    public double getGyroAngle() {
+        return gyroAngle;
+    }
+
+    public void setGyroAngle(double gyroAngle) {
+        this.gyroAngle = gyroAngle;
+    }
+
+    /**
+     * Gets the roll of the gyro.
+     *
+     * @return the roll in degrees
+     */
+    public double getGyroRoll() {
+        return gyroRoll;
+    }
+
+    public void setGyroRoll(double gyroRoll) {
+        this.gyroRoll = gyroRoll;
+    }
+
+    public double getShooterRPM() {
+        return shooterRPM;
+    }
+
+    public void setShooterRPM(double shooterRPM) {
+        this.shooterRPM = shooterRPM;
+    }
+
+    public double getBeltRPM() {
+        return beltRPM;
+    }
+
+    public double getIndexRPM() {
+        return indexRPM;
+    }
+
+    /**
+     * Records the speed of the conveyor motors.
+     *
+     * @param belt  the belt speed in RPM
+     * @param index the index speed in RPM
+     */
+    public void setConveyorRPMs(double belt, double index) {
+        beltRPM = belt;
+        indexRPM = index;
+    }
+
+    /**
+     * Gets the averaged distance from the conveyor lidar.
+     *
+     * @return the distance in cm
+     */
+    public double getLidarDistance() {
+        return lidarDistance;
+    }
+
+    public void setLidarDistance(double lidarDistance) {
+        this.lidarDistance = lidarDistance;
+    }
+
+    /**
+     * Gets the color seen by the color sensor.
+     *
+     * @return the color
+     */
+    public BallColor getBallColor() {
+        return ballColor;
+    }
+
+    public void setBallColor(BallColor ballColor) {
+        this.ballColor = ballColor;
+    }
+
+    public double getColorSensorProximity() {
+        return colorSensorProximity;
+    }
+
+    public void setColorSensorProximity(double colorSensorProximity) {
+        this.colorSensorProximity = colorSensorProximity;
+    }
+
+    public boolean hasTarget() {
+        return targetVisible;
+    }
+
+    public double getTargetHorizontalOffset() {
+        return targetHorizontalOffset;
+    }
+
+    public double getTargetVerticalOffset() {
+        return targetVerticalOffset;
+    }
+
+    /**
+     * Records what the targeting camera sees.
+     *
+     * @param visible          if the camera has a target
+     * @param horizontalOffset the horizontal offset in degrees
+     * @param verticalOffset   the vertical offset in degrees
+     */
+    public void setTarget(boolean visible, double horizontalOffset, double verticalOffset) {
+        targetVisible = visible;
+        targetHorizontalOffset = horizontalOffset;
+        targetVerticalOffset = verticalOffset;
+    }
+
+    /**
+     * Gets when the image the target values came from was taken.
+     *
+     * @return the FPGA time in seconds
+     */
+    public double getTargetCaptureTime() {
+        return targetCaptureTime;
+    }
+
+    /**
+     * Gets an id for the frame the target values came from, changes every new frame.
+     *
+     * @return the frame id
+     */
+    public long getTargetFrame() {
+        return targetFrame;
+    }
+
+    /**
+     * Records when the targeting camera's values were captured.
+     *
+     * @param captureTime the FPGA time the image was taken at in seconds
+     * @param frame       an id that changes every new frame
+     */
+    public void setTargetTiming(double captureTime, long frame) {
+        targetCaptureTime = captureTime;
+        targetFrame = frame;
+    }
+}
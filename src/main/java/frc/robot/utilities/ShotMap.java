@@ -0,0 +1,284 @@
+package frc.robot.utilities;
+
+import edu.wpi.first.networktables.EntryListenerFlags;
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.util.sendable.Sendable;
+import edu.wpi.first.util.sendable.SendableBuilder;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Table of shooter speeds by distance and hood position, loaded from shotmap.csv in the deploy folder.
+ * Speeds between rows are found with monotone cubic interpolation, which never overshoots
+ * between two measured shots. Past either end of the table the end row is used.
+ *
+ * <p>The csv is also published to NetworkTables at ShotMap/csv. Editing it there swaps in the
+ * new table straight away, so shots can be retuned without a redeploy. Copy the tuned csv back
+ * into the deploy folder to keep it.
+ */
+public class ShotMap implements Sendable {
+
+    private static ShotMap instance = null;
+
+    public static final String FILE_NAME = "shotmap.csv";
+
+    private final NetworkTableEntry csvEntry;
+
+    // swapped as a whole, so a lookup never sees half of a reload
+    private volatile Tables tables = new Tables(Table.EMPTY, Table.EMPTY, "");
+    private volatile int reloads = 0;
+    private volatile String lastError = "";
+
+    /**
+     * Gets the shot map instance using the singleton pattern.
+     *
+     * @return the shot map instance
+     */
+    public static synchronized ShotMap getInstance() {
+        if (instance == null) {
+            instance = new ShotMap();
+        }
+
+        return instance;
+    }
+
+    private ShotMap() {
+        Path path = Filesystem.getDeployDirectory().toPath().resolve(FILE_NAME);
+        try {
+            load(new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            report("couldn't read " + path + ": " + e.getMessage());
+        }
+
+        csvEntry = NetworkTableInstance.getDefault().getTable("ShotMap").getEntry("csv");
+        csvEntry.setString(tables.csv);
+        // not local, so publishing the file above doesn't reload it
+        csvEntry.addListener(notification -> {
+            // getString() throws on anything else, on the listener thread
+            if (notification.value.isString()) {
+                load(notification.value.getString());
+            } else {
+                report("ShotMap/csv was set to something other than a string");
+            }
+        }, EntryListenerFlags.kNew | EntryListenerFlags.kUpdate);
+    }
+
+    /**
+     * Gets the shooter speed for a shot.
+     *
+     * @param distance the distance to the hub in inches
+     * @param hoodUp   if the hood is up
+     * @return the speed in rpm, or 0 if there are no shots for the hood position
+     */
+    public double getRPM(double distance, boolean hoodUp) {
+        Tables current = tables;
+        return (hoodUp ? current.hoodUp : current.hoodDown).get(distance);
+    }
+
+    /**
+     * Replaces the table with one parsed from csv.
+     * If the csv can't be parsed, the old table is kept.
+     *
+     * @param csv rows of distance (in), hood (up or down) and speed (rpm)
+     * @return true if the table was replaced
+     */
+    public synchronized boolean load(String csv) {
+        Tables parsed;
+        try {
+            parsed = parse(csv);
+        } catch (IllegalArgumentException e) {
+            report(e.getMessage());
+            return false;
+        }
+
+        tables = parsed;
+        reloads++;
+        lastError = "";
+        return true;
+    }
+
+    private void report(String error) {
+        lastError = error;
+        DriverStation.reportWarning("ShotMap: " + error, false);
+    }
+
+    private static Tables parse(String csv) {
+        String[] lines = csv.split("\n");
+
+        int count = 0;
+        double[] distances = new double[lines.length];
+        double[] rpms = new double[lines.length];
+        boolean[] hoods = new boolean[lines.length];
+
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i].trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            String[] cells = line.split(",");
+            if (cells.length != 3) {
+                throw new IllegalArgumentException("line " + (i + 1) + " doesn't have 3 values");
+            }
+
+            String hood = cells[1].trim().toLowerCase();
+            if (!hood.equals("up") && !hood.equals("down")) {
+                throw new IllegalArgumentException("line " + (i + 1) + " hood isn't up or down");
+            }
+
+            try {
+                distances[count] = Double.parseDouble(cells[0].trim());
+                rpms[count] = Double.parseDouble(cells[2].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("line " + (i + 1) + " has a bad number");
+            }
+            hoods[count] = hood.equals("up");
+            count++;
+        }
+
+        return new Tables(
+            Table.of(distances, rpms, hoods, count, false),
+            Table.of(distances, rpms, hoods, count, true),
+            csv);
+    }
+
+    @Override
+    public void initSendable(SendableBuilder builder) {
+        builder.setSmartDashboardType("ShotMap");
+        builder.addDoubleProperty("hoodDownShots", () -> tables.hoodDown.distances.length, null);
+        builder.addDoubleProperty("hoodUpShots", () -> tables.hoodUp.distances.length, null);
+        builder.addDoubleProperty("reloads", () -> reloads, null);
+        builder.addStringProperty("error", () -> lastError, null);
+    }
+
+    private static class Tables {
+        private final Table hoodDown;
+        private final Table hoodUp;
+        private final String csv;
+
+        private Tables(Table hoodDown, Table hoodUp, String csv) {
+            this.hoodDown = hoodDown;
+            this.hoodUp = hoodUp;
+            this.csv = csv;
+        }
+    }
+
+    // one hood position, sorted by distance
+    private static class Table {
+        private static final Table EMPTY = new Table(new double[0], new double[0]);
+
+        private final double[] distances;
+        private final double[] rpms;
+        // the slope at each row, limited so the curve never overshoots
+        private final double[] slopes;
+
+        private static Table of(double[] distances, double[] rpms, boolean[] hoods, int count, boolean hoodUp) {
+            int rows = 0;
+            for (int i = 0; i < count; i++) {
+                if (hoods[i] == hoodUp) {
+                    rows++;
+                }
+            }
+
+            Integer[] order = new Integer[rows];
+            for (int i = 0, row = 0; i < count; i++) {
+                if (hoods[i] == hoodUp) {
+                    order[row++] = i;
+                }
+            }
+            Arrays.sort(order, (a, b) -> Double.compare(distances[a], distances[b]));
+
+            double[] sortedDistances = new double[rows];
+            double[] sortedRpms = new double[rows];
+            for (int row = 0; row < rows; row++) {
+                sortedDistances[row] = distances[order[row]];
+                sortedRpms[row] = rpms[order[row]];
+
+                if (row > 0 && sortedDistances[row] == sortedDistances[row - 1]) {
+                    throw new IllegalArgumentException(
+                        "distance " + sortedDistances[row] + " is in the table twice for hood " + (hoodUp ? "up" : "down"));
+                }
+            }
+
+            return new Table(sortedDistances, sortedRpms);
+        }
+
+        private Table(double[] distances, double[] rpms) {
+            this.distances = distances;
+            this.rpms = rpms;
+            slopes = new double[distances.length];
+
+            int n = distances.length;
+            if (n < 2) {
+                return;
+            }
+
+            // Fritsch-Carlson
+            double[] secants = new double[n - 1];
+            for (int i = 0; i < n - 1; i++) {
+                secants[i] = (rpms[i + 1] - rpms[i]) / (distances[i + 1] - distances[i]);
+            }
+
+            slopes[0] = secants[0];
+            slopes[n - 1] = secants[n - 2];
+            for (int i = 1; i < n - 1; i++) {
+                // flat at a peak or valley
+                slopes[i] = secants[i - 1] * secants[i] <= 0 ? 0 : (secants[i - 1] + secants[i]) / 2;
+            }
+
+            for (int i = 0; i < n - 1; i++) {
+                if (secants[i] == 0) {
+                    slopes[i] = 0;
+                    slopes[i + 1] = 0;
+                    continue;
+                }
+
+                double a = slopes[i] / secants[i];
+                double b = slopes[i + 1] / secants[i];
+                double length = a * a + b * b;
+                if (length > 9) {
+                    double scale = 3 / Math.sqrt(length);
+                    slopes[i] = scale * a * secants[i];
+                    slopes[i + 1] = scale * b * secants[i];
+                }
+            }
+        }
+
+        private double get(double distance) {
+            int n = distances.length;
+            if (n == 0) {
+                return 0;
+            }
+            if (distance <= distances[0]) {
+                return rpms[0];
+            }
+            if (distance >= distances[n - 1]) {
+                return rpms[n - 1];
+            }
+
+            // the row at or before the distance
+            int i = Arrays.binarySearch(distances, distance);
+            if (i >= 0) {
+                return rpms[i];
+            }
+            i = -i - 2;
+
+            double width = distances[i + 1] - distances[i];
+            double t = (distance - distances[i]) / width;
+            double t2 = t * t;
+            double t3 = t2 * t;
+
+            // cubic hermite basis
+            return (2 * t3 - 3 * t2 + 1) * rpms[i]
+                + (t3 - 2 * t2 + t) * width * slopes[i]
+                + (-2 * t3 + 3 * t2) * rpms[i + 1]
+                + (t3 - t2) * width * slopes[i + 1];
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package frc.robot.utilities;
+
+import frc.robot.utilities.functionalinterfaces.ShotSpeedFunction;
+
+/**
+ * Works out where to aim and how fast to spin the shooter to score while the robot is moving.
+ * The ball leaves with the robot's velocity, so the shot is aimed at a virtual hub moved back
+ * along that velocity by the ball's time of flight. The time of flight depends on the distance
+ * to the virtual hub, so the two are found by iterating.
+ *
+ * <p>Only uses numbers passed in, so it can be run offline against recorded data.
+ * Distances are in inches and angles are clockwise positive degrees, the same as the targeting camera.
+ */
+public class ShotSolver {
+
+    // TODO - measure these
+    public static final double
+        // time of flight of a shot is about base + per meter * distance (s)
+        TIME_OF_FLIGHT_BASE = 0.6,
+        TIME_OF_FLIGHT_PER_METER = 0.12;
+
+    // converges to well under an inch at drive speeds
+    public static final int ITERATIONS = 4;
+
+    private static final double INCHES_PER_METER = 39.3701;
+
+    private final ShotSpeedFunction speeds;
+    private final double timeOfFlightBase;
+    private final double timeOfFlightPerMeter;
+
+    private double aimOffset;
+    private double distance;
+    private double rpm;
+    private double timeOfFlight;
+
+    /**
+     * Creates a shot solver.
+     *
+     * @param speeds               the shooter speed for a distance, in inches, and hood position
+     * @param timeOfFlightBase     the time of flight of a shot from 0 m in seconds
+     * @param timeOfFlightPerMeter the time of flight added by each meter of distance in seconds
+     */
+    public ShotSolver(ShotSpeedFunction speeds, double timeOfFlightBase, double timeOfFlightPerMeter) {
+        this.speeds = speeds;
+        this.timeOfFlightBase = timeOfFlightBase;
+        this.timeOfFlightPerMeter = timeOfFlightPerMeter;
+    }
+
+    /**
+     * Creates a shot solver with the measured time of flight.
+     *
+     * @param speeds the shooter speed for a distance, in inches, and hood position
+     */
+    public ShotSolver(ShotSpeedFunction speeds) {
+        this(speeds, TIME_OF_FLIGHT_BASE, TIME_OF_FLIGHT_PER_METER);
+    }
+
+    /**
+     * Solves a shot, the results are read with the getters.
+     *
+     * @param range      the distance to the hub in inches
+     * @param bearing    the angle to the hub from the robot's heading in degrees, clockwise positive
+     * @param leftSpeed  the speed of the left wheels in meters per second
+     * @param rightSpeed the speed of the right wheels in meters per second
+     * @param hoodUp     if the hood is up
+     */
+    public void solve(double range, double bearing, double leftSpeed, double rightSpeed, boolean hoodUp) {
+        // robot frame in meters, forward and left positive
+        double rangeMeters = range / INCHES_PER_METER;
+        double hubX = rangeMeters * Math.cos(Math.toRadians(bearing));
+        double hubY = -rangeMeters * Math.sin(Math.toRadians(bearing));
+
+        // a differential drive only moves forwards
+        double velocity = (leftSpeed + rightSpeed) / 2;
+
+        double virtualX = hubX;
+        double virtualY = hubY;
+        double flight = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            flight = timeOfFlightBase + timeOfFlightPerMeter * Math.hypot(virtualX, virtualY);
+            virtualX = hubX - velocity * flight;
+        }
+
+        aimOffset = -Math.toDegrees(Math.atan2(virtualY, virtualX));
+        distance = Math.hypot(virtualX, virtualY) * INCHES_PER_METER;
+        rpm = speeds.getRPM(distance, hoodUp);
+        timeOfFlight = flight;
+    }
+
+    /**
+     * Gets the bearing to the virtual hub, which is where to aim.
+     * With the robot still this is the bearing that was passed in.
+     *
+     * @return the angle from the robot's heading in degrees, clockwise positive
+     */
+    public double getAimOffset() {
+        return aimOffset;
+    }
+
+    /**
+     * Gets the distance to shoot as if the robot were still.
+     *
+     * @return the distance in inches
+     */
+    public double getDistance() {
+        return distance;
+    }
+
+    public double getRPM() {
+        return rpm;
+    }
+
+    /**
+     * Gets how long the shot will be in the air.
+     *
+     * @return the time in seconds
+     */
+    public double getTimeOfFlight() {
+        return timeOfFlight;
+    }
+}
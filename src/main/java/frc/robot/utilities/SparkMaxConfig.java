@@ -0,0 +1,334 @@
+package frc.robot.utilities;
+
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.CANSparkMax.IdleMode;
+import com.revrobotics.REVLibError;
+import com.revrobotics.SparkMaxPIDController;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * The settings of a Spark Max, described up front instead of set one call at a time.
+ * Anything not given is left as it is on the controller.
+ * Configs are applied by the {@link SparkMaxConfigurator}.
+ *
+ * <p>Example: {@code new SparkMaxConfig().inverted(true).idleMode(IdleMode.kBrake).pid(0, 1, 0, 0)}
+ */
+public class SparkMaxConfig {
+
+    public static final int SLOTS = 4;
+
+    // settings read back by verifyFingerprint()
+    public static final int FINGERPRINT_SETTINGS = 2;
+
+    // gains are stored as floats on the controller, so they won't read back exactly
+    private static final double TOLERANCE = 1e-5;
+
+    private Boolean inverted = null;
+    private IdleMode idleMode = null;
+    private Integer smartCurrentLimit = null;
+    private Double openLoopRampRate = null;
+    private Double closedLoopRampRate = null;
+    // 0 means disabled
+    private Double voltageCompensation = null;
+
+    private final Slot[] slots = new Slot[SLOTS];
+
+    public SparkMaxConfig inverted(boolean inverted) {
+        this.inverted = inverted;
+        return this;
+    }
+
+    public SparkMaxConfig idleMode(IdleMode idleMode) {
+        this.idleMode = idleMode;
+        return this;
+    }
+
+    /**
+     * Sets the current limit.
+     * The controller can't report its current limit, so it can't be read back. Instead it is
+     * written on every boot, see {@link #applyCurrentLimit(CANSparkMax)}.
+     *
+     * @param amps the current limit in amps
+     * @return this config
+     */
+    public SparkMaxConfig smartCurrentLimit(int amps) {
+        smartCurrentLimit = amps;
+        return this;
+    }
+
+    public SparkMaxConfig openLoopRampRate(double seconds) {
+        openLoopRampRate = seconds;
+        return this;
+    }
+
+    public SparkMaxConfig closedLoopRampRate(double seconds) {
+        closedLoopRampRate = seconds;
+        return this;
+    }
+
+    public SparkMaxConfig voltageCompensation(double volts) {
+        voltageCompensation = volts;
+        return this;
+    }
+
+    public SparkMaxConfig disableVoltageCompensation() {
+        voltageCompensation = 0.0;
+        return this;
+    }
+
+    /**
+     * Sets the P, I and D gains of a slot.
+     *
+     * @param slot the PID slot
+     * @param p    the P gain
+     * @param i    the I gain
+     * @param d    the D gain
+     * @return this config
+     */
+    public SparkMaxConfig pid(int slot, double p, double i, double d) {
+        Slot gains = slot(slot);
+        gains.p = p;
+        gains.i = i;
+        gains.d = d;
+        return this;
+    }
+
+    /**
+     * Sets the feed forward and I zone of a slot.
+     *
+     * @param slot  the PID slot
+     * @param ff    the feed forward gain
+     * @param iZone the I zone
+     * @return this config
+     */
+    public SparkMaxConfig feedForward(int slot, double ff, double iZone) {
+        Slot gains = slot(slot);
+        gains.ff = ff;
+        gains.iZone = iZone;
+        return this;
+    }
+
+    /**
+     * Sets the output range of a slot.
+     *
+     * @param slot the PID slot
+     * @param min  the minimum output from -1 to 1
+     * @param max  the maximum output from -1 to 1
+     * @return this config
+     */
+    public SparkMaxConfig outputRange(int slot, double min, double max) {
+        Slot gains = slot(slot);
+        gains.min = min;
+        gains.max = max;
+        return this;
+    }
+
+    // slots that are given start at the controller's defaults
+    private Slot slot(int slot) {
+        if (slots[slot] == null) {
+            slots[slot] = new Slot();
+        }
+        return slots[slot];
+    }
+
+    /**
+     * Writes the config to a controller.
+     * This blocks on every setting, so it should be run off the main thread.
+     *
+     * @param motor the controller
+     * @return the number of settings which failed to be written
+     */
+    public int apply(CANSparkMax motor) {
+        int failures = 0;
+
+        if (inverted != null) {
+            motor.setInverted(inverted);
+        }
+        if (idleMode != null) {
+            failures += failed(motor.setIdleMode(idleMode));
+        }
+        if (smartCurrentLimit != null) {
+            failures += failed(motor.setSmartCurrentLimit(smartCurrentLimit));
+        }
+        if (openLoopRampRate != null) {
+            failures += failed(motor.setOpenLoopRampRate(openLoopRampRate));
+        }
+        if (closedLoopRampRate != null) {
+            failures += failed(motor.setClosedLoopRampRate(closedLoopRampRate));
+        }
+        if (voltageCompensation != null) {
+            failures += failed(voltageCompensation == 0
+                ? motor.disableVoltageCompensation()
+                : motor.enableVoltageCompensation(voltageCompensation));
+        }
+
+        SparkMaxPIDController pid = motor.getPIDController();
+        for (int i = 0; i < SLOTS; i++) {
+            Slot gains = slots[i];
+            if (gains == null) {
+                continue;
+            }
+
+            failures += failed(pid.setP(gains.p, i));
+            failures += failed(pid.setI(gains.i, i));
+            failures += failed(pid.setD(gains.d, i));
+            failures += failed(pid.setFF(gains.ff, i));
+            failures += failed(pid.setIZone(gains.iZone, i));
+            failures += failed(pid.setOutputRange(gains.min, gains.max, i));
+        }
+
+        return failures;
+    }
+
+    /**
+     * Writes just the current limit, which is cheap enough to do on every boot.
+     * Checking the controller acknowledged it is as close to verifying it as REVLib allows.
+     *
+     * @param motor the controller
+     * @return true if the limit was written, or if the config doesn't have one
+     */
+    public boolean applyCurrentLimit(CANSparkMax motor) {
+        return smartCurrentLimit == null || motor.setSmartCurrentLimit(smartCurrentLimit) == REVLibError.kOk;
+    }
+
+    /**
+     * Reads back only the first {@link #FINGERPRINT_SETTINGS} settings the config gives.
+     * Enough to catch a controller that was swapped or reset, without a CAN read for every setting.
+     *
+     * @param motor the controller
+     * @return the name of the first setting which doesn't match, or null if they all do
+     */
+    public String verifyFingerprint(CANSparkMax motor) {
+        int checked = 0;
+
+        if (inverted != null && checked++ < FINGERPRINT_SETTINGS && motor.getInverted() != inverted) {
+            return "inverted";
+        }
+        if (idleMode != null && checked++ < FINGERPRINT_SETTINGS && motor.getIdleMode() != idleMode) {
+            return "idle mode";
+        }
+        if (openLoopRampRate != null && checked++ < FINGERPRINT_SETTINGS
+            && !matches(motor.getOpenLoopRampRate(), openLoopRampRate)) {
+            return "open loop ramp rate";
+        }
+        if (closedLoopRampRate != null && checked++ < FINGERPRINT_SETTINGS
+            && !matches(motor.getClosedLoopRampRate(), closedLoopRampRate)) {
+            return "closed loop ramp rate";
+        }
+        if (voltageCompensation != null && checked++ < FINGERPRINT_SETTINGS
+            && !matches(motor.getVoltageCompensationNominalVoltage(), voltageCompensation)) {
+            return "voltage compensation";
+        }
+
+        for (int i = 0; i < SLOTS && checked < FINGERPRINT_SETTINGS; i++) {
+            if (slots[i] != null && checked++ < FINGERPRINT_SETTINGS
+                && !matches(motor.getPIDController().getP(i), slots[i].p)) {
+                return "slot " + i + " gains";
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Reads the settings back from a controller and checks they match.
+     *
+     * @param motor the controller
+     * @return the name of the first setting which doesn't match, or null if they all do
+     */
+    public String verify(CANSparkMax motor) {
+        if (inverted != null && motor.getInverted() != inverted) {
+            return "inverted";
+        }
+        if (idleMode != null && motor.getIdleMode() != idleMode) {
+            return "idle mode";
+        }
+        if (openLoopRampRate != null && !matches(motor.getOpenLoopRampRate(), openLoopRampRate)) {
+            return "open loop ramp rate";
+        }
+        if (closedLoopRampRate != null
+            && !matches(motor.getClosedLoopRampRate(), closedLoopRampRate)) {
+            return "closed loop ramp rate";
+        }
+        if (voltageCompensation != null
+            && !matches(motor.getVoltageCompensationNominalVoltage(), voltageCompensation)) {
+            return "voltage compensation";
+        }
+
+        SparkMaxPIDController pid = motor.getPIDController();
+        for (int i = 0; i < SLOTS; i++) {
+            Slot gains = slots[i];
+            if (gains == null) {
+                continue;
+            }
+
+            if (!matches(pid.getP(i), gains.p)
+                || !matches(pid.getI(i), gains.i)
+                || !matches(pid.getD(i), gains.d)
+                || !matches(pid.getFF(i), gains.ff)
+                || !matches(pid.getIZone(i), gains.iZone)
+                || !matches(pid.getOutputMin(i), gains.min)
+                || !matches(pid.getOutputMax(i), gains.max)) {
+                return "slot " + i + " gains";
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Gets a hash of the config, used to tell if a controller already has it.
+     *
+     * @param deviceId the CAN id of the controller, so configs moved between ids don't match
+     * @return the CRC32 of the config
+     */
+    public long hash(int deviceId) {
+        CRC32 crc = new CRC32();
+        crc.update((deviceId + ":" + this).getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+
+    private static int failed(REVLibError error) {
+        return error == REVLibError.kOk ? 0 : 1;
+    }
+
+    private static boolean matches(double actual, double expected) {
+        return Math.abs(actual - expected) <= TOLERANCE * Math.max(1, Math.abs(expected));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder()
+            .append("inverted=").append(inverted)
+            .append(",idleMode=").append(idleMode)
+            .append(",smartCurrentLimit=").append(smartCurrentLimit)
+            .append(",openLoopRampRate=").append(openLoopRampRate)
+            .append(",closedLoopRampRate=").append(closedLoopRampRate)
+            .append(",voltageCompensation=").append(voltageCompensation);
+
+        for (int i = 0; i < SLOTS; i++) {
+            if (slots[i] != null) {
+                builder.append(",slot").append(i).append('=').append(slots[i]);
+            }
+        }
+
+        return builder.toString();
+    }
+
+    // the gains of one PID slot, defaulting to the controller's factory settings
+    private static class Slot {
+        private double p = 0;
+        private double i = 0;
+        private double d = 0;
+        private double ff = 0;
+        private double iZone = 0;
+        private double min = -1;
+        private double max = 1;
+
+        @Override
+        public String toString() {
+            return "[" + p + "," + i + "," + d + "," + ff + "," + iZone + "," + min + "," + max + "]";
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package frc.robot.utilities;
+
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.REVLibError;
+import edu.wpi.first.wpilibj.Filesystem;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Applies {@link SparkMaxConfig}s to every controller at the same time.
+ * Each setting is a blocking CAN call, so configuring the controllers one after
+ * another makes startup slow. Here each controller gets its own thread.
+ *
+ * <p>Once a config has been written, checked and burned to flash, its hash is saved
+ * on the roboRIO along with the controller's firmware version. On the next boot a controller
+ * with a matching hash and firmware only has a couple of settings read back as a fingerprint,
+ * and its current limit written, instead of the whole config being written and flashed again.
+ */
+public class SparkMaxConfigurator {
+
+    private static SparkMaxConfigurator instance = null;
+
+    public static final String HASH_FILE = "sparkmax-configs.properties";
+
+    // times a config is written before the controller is given up on
+    public static final int MAX_ATTEMPTS = 3;
+
+    private final ExecutorService workers;
+    private final File hashFile;
+    private final Properties hashes = new Properties();
+
+    private int skipped = 0;
+    private int written = 0;
+    private int failed = 0;
+
+    /**
+     * Gets the configurator instance using the singleton pattern.
+     *
+     * @return the configurator instance
+     */
+    public static synchronized SparkMaxConfigurator getInstance() {
+        if (instance == null) {
+            instance = new SparkMaxConfigurator();
+        }
+
+        return instance;
+    }
+
+    private SparkMaxConfigurator() {
+        workers = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "Spark Max config thread");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // the operating directory is /home/lvuser on the robot
+        hashFile = new File(Filesystem.getOperatingDirectory(), HASH_FILE);
+        try (InputStream input = new FileInputStream(hashFile)) {
+            hashes.load(input);
+        } catch (IOException e) {
+            // nothing has been saved yet, so every controller gets written
+        }
+    }
+
+    /**
+     * Starts configuring a controller in the background.
+     * Call this after follow(), and don't send anything else to the controller until it's done.
+     *
+     * @param motor  the controller
+     * @param config the config it should have
+     * @return a future which completes once the controller has been configured, failures are
+     *     shown by the {@link StartupOrchestrator}
+     */
+    public CompletableFuture<Void> configure(CANSparkMax motor, SparkMaxConfig config) {
+        return StartupOrchestrator.getInstance().track(
+            "Spark Max " + motor.getDeviceId(),
+            CompletableFuture.supplyAsync(() -> configureBlocking(motor, config), workers));
+    }
+
+    private boolean configureBlocking(CANSparkMax motor, SparkMaxConfig config) {
+        int id = motor.getDeviceId();
+        String key = Integer.toString(id);
+        // a firmware update can reset the settings, so it needs a full write
+        String hash = Long.toHexString(config.hash(id)) + "@" + Integer.toHexString(motor.getFirmwareVersion());
+
+        // a matching hash only says what was written, the fingerprint catches swapped controllers
+        if (hash.equals(getHash(key)) && config.verifyFingerprint(motor) == null) {
+            if (config.applyCurrentLimit(motor)) {
+                countSkipped();
+                return true;
+            }
+            System.out.println("Spark Max " + id + " did not take its current limit, writing its whole config");
+        }
+
+        String mismatch = null;
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            config.apply(motor);
+            mismatch = config.verify(motor);
+
+            if (mismatch == null) {
+                break;
+            }
+        }
+
+        if (mismatch != null) {
+            countFailed();
+            System.out.println("Spark Max " + id + " did not take its config, " + mismatch + " is wrong");
+            return false;
+        }
+
+        // the hash is only saved once the config is in flash, so it survives a power cycle
+        if (motor.burnFlash() == REVLibError.kOk) {
+            saveHash(key, hash);
+        } else {
+            System.out.println("failed to burn the config to flash on Spark Max " + id);
+        }
+
+        countWritten();
+        return true;
+    }
+
+    private synchronized String getHash(String key) {
+        return hashes.getProperty(key);
+    }
+
+    private synchronized void saveHash(String key, String hash) {
+        hashes.setProperty(key, hash);
+
+        try (OutputStream output = new FileOutputStream(hashFile)) {
+            hashes.store(output, "Spark Max config hashes by CAN id");
+        } catch (IOException e) {
+            System.out.println("failed to save Spark Max config hashes: " + e.getMessage());
+        }
+    }
+
+    private synchronized void countSkipped() {
+        skipped++;
+    }
+
+    private synchronized void countWritten() {
+        written++;
+    }
+
+    private synchronized void countFailed() {
+        failed++;
+    }
+
+    /**
+     * Gets the number of controllers which already had their config.
+     *
+     * @return the number of controllers skipped
+     */
+    public synchronized int getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * Gets the number of controllers whose config was written and flashed.
+     *
+     * @return the number of controllers written
+     */
+    public synchronized int getWritten() {
+        return written;
+    }
+
+    /**
+     * Gets the number of controllers which couldn't be configured.
+     *
+     * @return the number of failures
+     */
+    public synchronized int getFailed() {
+        return failed;
+    }
+}
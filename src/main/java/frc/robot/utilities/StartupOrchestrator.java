@@ -0,0 +1,88 @@
+package frc.robot.utilities;
+
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs slow device startup (calibration, I2C bring-up, motor configs) off the main thread,
+ * so robotInit finishes straight away.
+ * Every step is tracked by name, and its state and how long it took are shown on the
+ * dashboard under Startup. Each step gets its own entry when it is tracked, so steps
+ * started at any time show up.
+ */
+public class StartupOrchestrator {
+
+    private static StartupOrchestrator instance = null;
+
+    private final ExecutorService workers;
+
+    private final NetworkTable table =
+        NetworkTableInstance.getDefault().getTable("SmartDashboard").getSubTable("Startup");
+
+    /**
+     * Gets the orchestrator instance using the singleton pattern.
+     *
+     * @return the orchestrator instance
+     */
+    public static synchronized StartupOrchestrator getInstance() {
+        if (instance == null) {
+            instance = new StartupOrchestrator();
+        }
+
+        return instance;
+    }
+
+    private StartupOrchestrator() {
+        workers = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "Startup thread");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Runs a startup step in the background.
+     * The returned future completes normally even if the step throws, the failure is
+     * printed and shown instead.
+     *
+     * @param name the name of the step
+     * @param step the startup work
+     * @return a future which completes once the step has finished
+     */
+    public CompletableFuture<Void> run(String name, Runnable step) {
+        return track(name, CompletableFuture.runAsync(step, workers));
+    }
+
+    /**
+     * Tracks startup work that is already running.
+     *
+     * @param name   the name of the step
+     * @param future the future of the work
+     * @return a future which completes once the work has finished, even if it failed
+     */
+    public CompletableFuture<Void> track(String name, CompletableFuture<?> future) {
+        long startTime = System.nanoTime();
+        setState(name, "starting");
+
+        return future.handle((result, error) -> {
+            if (error != null) {
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                System.out.println(name + " failed to start: " + cause);
+                setState(name, "failed: " + cause.getMessage());
+            } else if (Boolean.FALSE.equals(result)) {
+                setState(name, "failed");
+            } else {
+                setState(name, String.format("ready after %.0f ms", (System.nanoTime() - startTime) / 1e6));
+            }
+            return null;
+        });
+    }
+
+    // NetworkTables entries are thread safe, so steps can finish on any thread
+    private void setState(String name, String state) {
+        table.getEntry(name).setString(state);
+    }
+}
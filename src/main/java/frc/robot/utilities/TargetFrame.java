@@ -0,0 +1,177 @@
+package frc.robot.utilities;
+
+/**
+ * One frame of results from a vision camera.
+ * Frames are immutable, so every value in one always came from the same image.
+ */
+public final class TargetFrame {
+
+    private static final double[] NO_TARGETS = new double[0];
+
+    // what a camera reports before it has sent anything
+    public static final TargetFrame NONE = new TargetFrame(0, false, 0, 0, 0, 0, 0);
+
+    private final long sequence;
+    private final boolean hasTarget;
+    private final double horizontalOffset;
+    private final double verticalOffset;
+    private final double area;
+    private final double latency;
+    private final double receivedTime;
+    // every target in the frame, the best first
+    private final double[] targetYaws;
+    private final double[] targetPitches;
+
+    /**
+     * Creates a new target frame which has only its best target.
+     *
+     * @param sequence         counts up by one for every frame from the camera
+     * @param hasTarget        if the camera saw a target
+     * @param horizontalOffset the horizontal offset to the target in degrees
+     * @param verticalOffset   the vertical offset to the target in degrees
+     * @param area             the percentage of the image the target covers
+     * @param latency          how old the results were when they were published in ms
+     * @param receivedTime     the FPGA time the frame was received in seconds
+     */
+    public TargetFrame(
+        long sequence,
+        boolean hasTarget,
+        double horizontalOffset,
+        double verticalOffset,
+        double area,
+        double latency,
+        double receivedTime) {
+        this(
+            sequence,
+            hasTarget,
+            horizontalOffset,
+            verticalOffset,
+            area,
+            latency,
+            receivedTime,
+            hasTarget ? new double[] {horizontalOffset} : NO_TARGETS,
+            hasTarget ? new double[] {verticalOffset} : NO_TARGETS);
+    }
+
+    /**
+     * Creates a new target frame with every target the camera saw.
+     * The arrays are kept, not copied, so they must not be changed afterwards.
+     *
+     * @param sequence         counts up by one for every frame from the camera
+     * @param hasTarget        if the camera saw a target
+     * @param horizontalOffset the horizontal offset to the best target in degrees
+     * @param verticalOffset   the vertical offset to the best target in degrees
+     * @param area             the percentage of the image the best target covers
+     * @param latency          how old the results were when they were published in ms
+     * @param receivedTime     the FPGA time the frame was received in seconds
+     * @param targetYaws       the horizontal offset to every target in degrees, the best first
+     * @param targetPitches    the vertical offset to every target in degrees, the best first
+     */
+    public TargetFrame(
+        long sequence,
+        boolean hasTarget,
+        double horizontalOffset,
+        double verticalOffset,
+        double area,
+        double latency,
+        double receivedTime,
+        double[] targetYaws,
+        double[] targetPitches) {
+        this.sequence = sequence;
+        this.hasTarget = hasTarget;
+        this.horizontalOffset = horizontalOffset;
+        this.verticalOffset = verticalOffset;
+        this.area = area;
+        this.latency = latency;
+        this.receivedTime = receivedTime;
+        this.targetYaws = targetYaws;
+        this.targetPitches = targetPitches;
+    }
+
+    /**
+     * Gets the frame's sequence number.
+     * A new frame always has a bigger number, so an unchanged number means the data is stale.
+     *
+     * @return the sequence number, 0 if nothing has been received
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public boolean hasTarget() {
+        return hasTarget;
+    }
+
+    public double getHorizontalOffset() {
+        return horizontalOffset;
+    }
+
+    public double getVerticalOffset() {
+        return verticalOffset;
+    }
+
+    public double getArea() {
+        return area;
+    }
+
+    public int getTargetCount() {
+        return targetYaws.length;
+    }
+
+    /**
+     * Gets the horizontal offset to one of the targets.
+     *
+     * @param target the index of the target, 0 is the best
+     * @return the horizontal offset in degrees
+     */
+    public double getTargetYaw(int target) {
+        return targetYaws[target];
+    }
+
+    /**
+     * Gets the vertical offset to one of the targets.
+     *
+     * @param target the index of the target, 0 is the best
+     * @return the vertical offset in degrees
+     */
+    public double getTargetPitch(int target) {
+        return targetPitches[target];
+    }
+
+    /**
+     * Gets how old the results were when they were published.
+     *
+     * @return the latency in ms
+     */
+    public double getLatency() {
+        return latency;
+    }
+
+    /**
+     * Gets when the frame was received.
+     *
+     * @return the FPGA time in seconds
+     */
+    public double getReceivedTime() {
+        return receivedTime;
+    }
+
+    /**
+     * Gets when the image the frame came from was taken.
+     *
+     * @return the FPGA time in seconds
+     */
+    public double getCaptureTime() {
+        return receivedTime - latency / 1000;
+    }
+
+    /**
+     * Gets how long ago the image the frame came from was taken.
+     *
+     * @param now the current FPGA time in seconds
+     * @return the age in seconds
+     */
+    public double getAge(double now) {
+        return now - getCaptureTime();
+    }
+}
@@ -0,0 +1,10 @@
+package frc.robot.utilities.functionalinterfaces;
+
+import frc.robot.utilities.SensorSnapshot;
+
+/**
+ * Interface for anything that reads sensors into the snapshot.
+ */
+public interface SensorSource {
+    void sample(SensorSnapshot snapshot);
+}
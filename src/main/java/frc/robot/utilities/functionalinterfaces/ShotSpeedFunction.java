@@ -0,0 +1,8 @@
+package frc.robot.utilities.functionalinterfaces;
+
+/**
+ * Interface for anything that gives the shooter speed for a shot.
+ */
+public interface ShotSpeedFunction {
+    double getRPM(double distance, boolean hoodUp);
+}
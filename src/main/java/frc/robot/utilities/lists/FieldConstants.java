@@ -0,0 +1,17 @@
+package frc.robot.utilities.lists;
+
+/**
+ * Positions of things on the field, in meters from the blue alliance corner.
+ */
+public final class FieldConstants {
+    public static final double
+        FIELD_LENGTH = 16.4592,
+        FIELD_WIDTH = 8.2296,
+
+        // the hub is in the middle of the field
+        HUB_X = FIELD_LENGTH / 2,
+        HUB_Y = FIELD_WIDTH / 2,
+
+        // radius of the vision tape ring on the upper hub
+        HUB_VISION_RADIUS = 0.6778;
+}
@@ -16,6 +16,11 @@ public final class PIDValues {
         ALIGN_I = 0.004,
         ALIGN_D = 0,
 
+        // heading lock PID, power per radian
+        HEADING_P = 1.0,
+        HEADING_I = 0,
+        HEADING_D = 0.05,
+
         // climb PID
         CLIMB_P = 0.15,
         CLIMB_I = 0.1,
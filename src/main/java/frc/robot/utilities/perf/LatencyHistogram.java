@@ -0,0 +1,115 @@
+package frc.robot.utilities.perf;
+
+/**
+ * Fixed bucket histogram of latencies.
+ * Buckets are log spaced with 8 sub buckets per power of two, so every value
+ * is within 12.5% of its bucket. Recording never allocates.
+ */
+public class LatencyHistogram {
+
+    // values under this are stored exactly, one bucket per microsecond
+    private static final int LINEAR_BUCKETS = 16;
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    // covers up to ~2 seconds, anything longer goes into the last bucket
+    private static final int BUCKET_COUNT = LINEAR_BUCKETS + (21 - 4) * SUB_BUCKETS;
+
+    private final int[] counts = new int[BUCKET_COUNT];
+    private int count;
+    private long max;
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos the latency in ns
+     */
+    public void record(long nanos) {
+        long micros = nanos / 1000;
+        if (micros < 0) {
+            micros = 0;
+        }
+
+        counts[bucketOf(micros)]++;
+        count++;
+
+        if (micros > max) {
+            max = micros;
+        }
+    }
+
+    /**
+     * Gets the latency under which a fraction of the recorded latencies fall.
+     *
+     * @param fraction the fraction from 0-1, 0.5 is the median
+     * @return the latency in ms, or 0 if nothing was recorded
+     */
+    public double getPercentileMs(double fraction) {
+        if (count == 0) {
+            return 0;
+        }
+
+        int target = (int) Math.ceil(fraction * count);
+        if (target < 1) {
+            target = 1;
+        }
+
+        int seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                // the top of the bucket, but never more than the largest value seen
+                return Math.min(upperBoundOf(i), max) / 1000.0;
+            }
+        }
+
+        return max / 1000.0;
+    }
+
+    /**
+     * Gets the largest latency recorded.
+     *
+     * @return the latency in ms
+     */
+    public double getMaxMs() {
+        return max / 1000.0;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Clears the histogram for the next window.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = 0;
+        }
+        count = 0;
+        max = 0;
+    }
+
+    private static int bucketOf(long micros) {
+        if (micros < LINEAR_BUCKETS) {
+            return (int) micros;
+        }
+
+        int magnitude = 63 - Long.numberOfLeadingZeros(micros);
+        int subBucket = (int) (micros >> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        int index = LINEAR_BUCKETS + (magnitude - 4) * SUB_BUCKETS + subBucket;
+
+        return Math.min(index, BUCKET_COUNT - 1);
+    }
+
+    private static long upperBoundOf(int bucket) {
+        if (bucket < LINEAR_BUCKETS) {
+            return bucket;
+        }
+
+        int magnitude = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + 4;
+        int subBucket = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+
+        return ((long) (SUB_BUCKETS + subBucket + 1) << (magnitude - SUB_BUCKET_BITS)) - 1;
+    }
+}
@@ -0,0 +1,185 @@
+package frc.robot.utilities.perf;
+
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.utilities.PeriodicExecutor;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Times the parts of each scheduler loop and publishes the results to the Perf table.
+ * Every window the p50, p99 and max of each section is published and the histograms are cleared.
+ */
+public class LoopProfiler {
+
+    private static LoopProfiler instance = null;
+
+    // number of loops in each published window (~1 second)
+    public static final int WINDOW_LOOPS = 50;
+
+    // commands past this many names are all timed together, so the table can't grow forever
+    public static final int MAX_COMMAND_SECTIONS = 64;
+
+    private final NetworkTable table;
+
+    private final ArrayList<Section> sections = new ArrayList<>();
+    // keyed by name, so commands built over and over share a section
+    private final HashMap<String, Section> commandSections = new HashMap<>();
+    private Section otherCommands;
+
+    private final Section loopSection;
+
+    // time the last command finished, or the commands started
+    private long lastCommandMark;
+    private int loopsInWindow;
+
+    /**
+     * Gets the profiler instance using the singleton pattern.
+     *
+     * @return the profiler instance
+     */
+    public static LoopProfiler getInstance() {
+        if (instance == null) {
+            instance = new LoopProfiler();
+        }
+
+        return instance;
+    }
+
+    private LoopProfiler() {
+        table = NetworkTableInstance.getDefault().getTable("Perf");
+        loopSection = section("CommandScheduler.run()");
+    }
+
+    /**
+     * Creates a new timed section.
+     * Sections should be created once and kept, not created every loop.
+     *
+     * @param name the name the section is published under
+     * @return the section
+     */
+    public Section section(String name) {
+        Section section = new Section(table.getSubTable(name));
+        sections.add(section);
+        return section;
+    }
+
+    /**
+     * Hooks into the scheduler so every command's execute gets timed.
+     * Call this after all the button bindings are made, so the profiler's marker runs
+     * right before the commands do.
+     *
+     * <p>Each command's time is measured from the previous mark, not around execute itself.
+     * So it also includes the previous command's isFinished and end, and for the first command,
+     * any buttons polled after this one.
+     *
+     * @param scheduler the command scheduler
+     */
+    public void install(CommandScheduler scheduler) {
+        // buttons are polled right before the commands are run
+        scheduler.addButton(() -> lastCommandMark = System.nanoTime());
+        scheduler.onCommandExecute(this::commandExecuted);
+    }
+
+    /**
+     * Marks the start of a scheduler loop.
+     */
+    public void startLoop() {
+        loopSection.start();
+    }
+
+    /**
+     * Marks the end of a scheduler loop, and publishes the window if it is finished.
+     */
+    public void endLoop() {
+        loopSection.stop();
+
+        loopsInWindow++;
+        if (loopsInWindow >= WINDOW_LOOPS) {
+            publish();
+            loopsInWindow = 0;
+        }
+    }
+
+    // runs after each command executes, the time since the last mark is that command's time
+    private void commandExecuted(Command command) {
+        long now = System.nanoTime();
+
+        String name = command.getName();
+        Section section = commandSections.get(name);
+        if (section == null) {
+            if (commandSections.size() < MAX_COMMAND_SECTIONS) {
+                section = section(name + ".execute()");
+                commandSections.put(name, section);
+            } else {
+                if (otherCommands == null) {
+                    otherCommands = section("otherCommands.execute()");
+                }
+                section = otherCommands;
+            }
+        }
+
+        section.histogram.record(now - lastCommandMark);
+        lastCommandMark = now;
+    }
+
+    private void publish() {
+        for (int i = 0; i < sections.size(); i++) {
+            sections.get(i).publish();
+        }
+
+        for (PeriodicExecutor.Task task : PeriodicExecutor.getInstance().getTasks()) {
+            NetworkTable taskTable = table.getSubTable("executor").getSubTable(task.getName());
+            taskTable.getEntry("overruns").setDouble(task.getOverruns());
+            taskTable.getEntry("maxJitterMs").setDouble(task.getMaxJitterMs());
+            taskTable.getEntry("avgJitterMs").setDouble(task.getAverageJitterMs());
+            taskTable.getEntry("maxExecuteMs").setDouble(task.getMaxExecuteTimeMs());
+        }
+    }
+
+    /**
+     * A timed part of the loop.
+     */
+    public static class Section {
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final NetworkTableEntry p50;
+        private final NetworkTableEntry p99;
+        private final NetworkTableEntry max;
+
+        private long startTime;
+
+        private Section(NetworkTable table) {
+            p50 = table.getEntry("p50Ms");
+            p99 = table.getEntry("p99Ms");
+            max = table.getEntry("maxMs");
+        }
+
+        /**
+         * Starts timing the section.
+         */
+        public void start() {
+            startTime = System.nanoTime();
+        }
+
+        /**
+         * Stops timing the section and records how long it took.
+         */
+        public void stop() {
+            histogram.record(System.nanoTime() - startTime);
+        }
+
+        private void publish() {
+            if (histogram.getCount() == 0) {
+                return;
+            }
+
+            p50.setDouble(histogram.getPercentileMs(0.5));
+            p99.setDouble(histogram.getPercentileMs(0.99));
+            max.setDouble(histogram.getMaxMs());
+            histogram.reset();
+        }
+    }
+}
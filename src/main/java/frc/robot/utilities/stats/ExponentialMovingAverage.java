@@ -0,0 +1,65 @@
+package frc.robot.utilities.stats;
+
+/**
+ * Exponential moving average, newer values count for more than older ones.
+ * Only the current average is stored.
+ */
+public class ExponentialMovingAverage {
+
+    private final double alpha;
+
+    private double average = 0;
+    private boolean initialized = false;
+
+    /**
+     * Creates a new exponential moving average.
+     *
+     * @param alpha how much each new value counts from 0-1, higher follows the input faster
+     */
+    public ExponentialMovingAverage(double alpha) {
+        if (alpha <= 0 || alpha > 1) {
+            throw new IllegalArgumentException("alpha must be between 0 and 1");
+        }
+
+        this.alpha = alpha;
+    }
+
+    /**
+     * Creates an average which acts like a window of n values.
+     *
+     * @param size the number of values
+     * @return the average
+     */
+    public static ExponentialMovingAverage ofWindow(int size) {
+        return new ExponentialMovingAverage(2.0 / (size + 1));
+    }
+
+    /**
+     * Adds a value. The first value is taken as the average.
+     *
+     * @param value the new value
+     * @return the new average
+     */
+    public double update(double value) {
+        if (!initialized) {
+            average = value;
+            initialized = true;
+        } else {
+            average += alpha * (value - average);
+        }
+
+        return average;
+    }
+
+    public double getAverage() {
+        return average;
+    }
+
+    /**
+     * Forgets the average, the next value starts it again.
+     */
+    public void reset() {
+        average = 0;
+        initialized = false;
+    }
+}
@@ -0,0 +1,140 @@
+package frc.robot.utilities.stats;
+
+/**
+ * Min and max of the last n values.
+ * Each is kept with a monotonic deque, so adding a value is amortized O(1)
+ * and reading the min or max is O(1). The deques are primitive ring buffers.
+ */
+public class WindowedExtrema {
+
+    private final int size;
+
+    // the index of every value ever added, used to tell when a value has left the window
+    private long added = 0;
+
+    private final Deque min;
+    private final Deque max;
+
+    /**
+     * Creates new windowed extrema.
+     *
+     * @param size the number of values in the window
+     */
+    public WindowedExtrema(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("window size must be at least 1");
+        }
+
+        this.size = size;
+        // a full window plus the value being added
+        min = new Deque(size + 1);
+        max = new Deque(size + 1);
+    }
+
+    /**
+     * Adds a value, dropping the oldest one if the window is full.
+     *
+     * @param value the new value
+     */
+    public void add(double value) {
+        long index = added++;
+        long oldest = index - size + 1;
+
+        // values which can never be the min again are dropped from the back
+        while (!min.isEmpty() && min.backValue() >= value) {
+            min.popBack();
+        }
+        min.pushBack(value, index);
+        while (min.frontIndex() < oldest) {
+            min.popFront();
+        }
+
+        while (!max.isEmpty() && max.backValue() <= value) {
+            max.popBack();
+        }
+        max.pushBack(value, index);
+        while (max.frontIndex() < oldest) {
+            max.popFront();
+        }
+    }
+
+    /**
+     * Gets the smallest value in the window.
+     *
+     * @return the min, or 0 if nothing has been added
+     */
+    public double getMin() {
+        return min.isEmpty() ? 0 : min.frontValue();
+    }
+
+    /**
+     * Gets the largest value in the window.
+     *
+     * @return the max, or 0 if nothing has been added
+     */
+    public double getMax() {
+        return max.isEmpty() ? 0 : max.frontValue();
+    }
+
+    /**
+     * Empties the window.
+     */
+    public void clear() {
+        min.clear();
+        max.clear();
+    }
+
+    // a fixed size deque of (value, index) pairs
+    private static class Deque {
+        private final double[] values;
+        private final long[] indices;
+        private int front = 0;
+        private int length = 0;
+
+        private Deque(int capacity) {
+            values = new double[capacity];
+            indices = new long[capacity];
+        }
+
+        private boolean isEmpty() {
+            return length == 0;
+        }
+
+        private int back() {
+            return (front + length - 1) % values.length;
+        }
+
+        private double frontValue() {
+            return values[front];
+        }
+
+        private long frontIndex() {
+            return indices[front];
+        }
+
+        private double backValue() {
+            return values[back()];
+        }
+
+        private void pushBack(double value, long index) {
+            length++;
+            int slot = back();
+            values[slot] = value;
+            indices[slot] = index;
+        }
+
+        private void popBack() {
+            length--;
+        }
+
+        private void popFront() {
+            front = (front + 1) % values.length;
+            length--;
+        }
+
+        private void clear() {
+            front = 0;
+            length = 0;
+        }
+    }
+}
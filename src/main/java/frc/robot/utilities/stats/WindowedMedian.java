@@ -0,0 +1,101 @@
+package frc.robot.utilities.stats;
+
+import java.util.Arrays;
+
+/**
+ * Median of the last n values, used to throw out single bad readings.
+ * The window is kept sorted alongside the ring of values, so adding a value
+ * is O(n) array shifting and reading the median is O(1). Meant for small windows.
+ */
+public class WindowedMedian {
+
+    private final double[] ring;
+    private final double[] sorted;
+
+    private int next = 0;
+    private int count = 0;
+
+    /**
+     * Creates a new windowed median.
+     *
+     * @param size the number of values in the window
+     */
+    public WindowedMedian(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("window size must be at least 1");
+        }
+
+        ring = new double[size];
+        sorted = new double[size];
+    }
+
+    /**
+     * Adds a value, dropping the oldest one if the window is full.
+     *
+     * @param value the new value
+     * @return the new median
+     */
+    public double add(double value) {
+        // NaN can't be sorted, so it's skipped
+        if (Double.isNaN(value)) {
+            return getMedian();
+        }
+
+        if (count == ring.length) {
+            remove(ring[next]);
+        }
+
+        insert(value);
+        ring[next] = value;
+        next = (next + 1) % ring.length;
+
+        return getMedian();
+    }
+
+    private void remove(double value) {
+        int index = Arrays.binarySearch(sorted, 0, count, value);
+        System.arraycopy(sorted, index + 1, sorted, index, count - index - 1);
+        count--;
+    }
+
+    private void insert(double value) {
+        int index = Arrays.binarySearch(sorted, 0, count, value);
+        if (index < 0) {
+            index = -index - 1;
+        }
+
+        System.arraycopy(sorted, index, sorted, index + 1, count - index);
+        sorted[index] = value;
+        count++;
+    }
+
+    /**
+     * Gets the median of the window.
+     * With an even number of values it is the mean of the middle two.
+     *
+     * @return the median, or 0 if nothing has been added
+     */
+    public double getMedian() {
+        if (count == 0) {
+            return 0;
+        }
+
+        int middle = count / 2;
+        if (count % 2 == 1) {
+            return sorted[middle];
+        }
+        return (sorted[middle - 1] + sorted[middle]) / 2;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Empties the window.
+     */
+    public void clear() {
+        next = 0;
+        count = 0;
+    }
+}
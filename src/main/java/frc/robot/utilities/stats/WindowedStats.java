@@ -0,0 +1,134 @@
+package frc.robot.utilities.stats;
+
+/**
+ * Mean and variance of the last n values.
+ * Running sums are kept so adding a value and reading the stats are both O(1),
+ * and nothing is allocated after construction.
+ */
+public class WindowedStats {
+
+    private final double[] values;
+
+    private int next = 0;
+    private int count = 0;
+    private double sum = 0;
+    private double sumOfSquares = 0;
+
+    /**
+     * Creates new windowed stats.
+     *
+     * @param size the number of values in the window
+     */
+    public WindowedStats(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("window size must be at least 1");
+        }
+
+        values = new double[size];
+    }
+
+    /**
+     * Adds a value, dropping the oldest one if the window is full.
+     *
+     * @param value the new value
+     */
+    public void add(double value) {
+        if (count == values.length) {
+            double oldest = values[next];
+            sum -= oldest;
+            sumOfSquares -= oldest * oldest;
+        } else {
+            count++;
+        }
+
+        values[next] = value;
+        sum += value;
+        sumOfSquares += value * value;
+
+        next++;
+        if (next == values.length) {
+            next = 0;
+            // the running sums drift as values come and go, so they're redone once a window
+            recalculate();
+        }
+    }
+
+    /**
+     * Fills the whole window with one value.
+     *
+     * @param value the value
+     */
+    public void fill(double value) {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = value;
+        }
+
+        next = 0;
+        count = values.length;
+        recalculate();
+    }
+
+    /**
+     * Empties the window.
+     */
+    public void clear() {
+        next = 0;
+        count = 0;
+        sum = 0;
+        sumOfSquares = 0;
+    }
+
+    private void recalculate() {
+        sum = 0;
+        sumOfSquares = 0;
+        for (int i = 0; i < count; i++) {
+            sum += values[i];
+            sumOfSquares += values[i] * values[i];
+        }
+    }
+
+    /**
+     * Gets the mean of the values in the window.
+     *
+     * @return the mean, or 0 if the window is empty
+     */
+    public double getMean() {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    /**
+     * Gets the population variance of the values in the window.
+     *
+     * @return the variance, or 0 if the window is empty
+     */
+    public double getVariance() {
+        if (count == 0) {
+            return 0;
+        }
+
+        double mean = sum / count;
+        // rounding can make this slightly negative when every value is the same
+        return Math.max(0, sumOfSquares / count - mean * mean);
+    }
+
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    /**
+     * Gets the number of values in the window.
+     *
+     * @return the number of values, at most the size
+     */
+    public int getCount() {
+        return count;
+    }
+
+    public int getSize() {
+        return values.length;
+    }
+}
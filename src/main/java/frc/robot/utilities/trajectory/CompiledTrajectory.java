@@ -0,0 +1,179 @@
+package frc.robot.utilities.trajectory;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.trajectory.Trajectory;
+import frc.robot.utilities.Functions;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A trajectory generated at build time by {@link TrajectoryCompiler}.
+ * The file is memory mapped and the states are sampled straight out of it, so following
+ * one never copies the states or allocates.
+ *
+ * <p>File format (big endian): magic, version, state count (ints), then one record of
+ * {@link #RECORD_DOUBLES} doubles per state: time, velocity, acceleration, x, y,
+ * heading (rad), curvature.
+ */
+public class CompiledTrajectory implements SampledTrajectory {
+
+    public static final int MAGIC = 0x5452414A; // "TRAJ"
+    public static final int VERSION = 1;
+    public static final int HEADER_BYTES = 3 * Integer.BYTES;
+
+    // fields in each record
+    public static final int
+        TIME = 0,
+        VELOCITY = 1,
+        ACCELERATION = 2,
+        X = 3,
+        Y = 4,
+        HEADING = 5,
+        CURVATURE = 6,
+        RECORD_DOUBLES = 7;
+
+    public static final String EXTENSION = ".traj";
+
+    private final DoubleBuffer states;
+    private final int count;
+    private final Pose2d initialPose;
+
+    private CompiledTrajectory(DoubleBuffer states, int count) {
+        this.states = states;
+        this.count = count;
+
+        initialPose = count == 0
+            ? new Pose2d()
+            : new Pose2d(get(0, X), get(0, Y), new Rotation2d(get(0, HEADING)));
+    }
+
+    /**
+     * Maps a compiled trajectory file.
+     *
+     * @param path the path to the file
+     * @return the trajectory
+     * @throws IOException if the file can't be read or isn't a compiled trajectory
+     */
+    public static CompiledTrajectory load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+                throw new IOException(path + " is not a compiled trajectory");
+            }
+
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException(path + " is version " + version + ", expected " + VERSION);
+            }
+
+            int count = buffer.getInt();
+            if (buffer.remaining() < count * RECORD_DOUBLES * Double.BYTES) {
+                throw new IOException(path + " is truncated");
+            }
+
+            return new CompiledTrajectory(buffer.slice().asDoubleBuffer(), count);
+        }
+    }
+
+    /**
+     * Writes states in the compiled format.
+     *
+     * @param trajectory the trajectory to write
+     * @return the bytes to write to the file
+     */
+    public static ByteBuffer encode(Trajectory trajectory) {
+        int count = trajectory.getStates().size();
+        ByteBuffer buffer = ByteBuffer.allocate(
+            HEADER_BYTES + count * RECORD_DOUBLES * Double.BYTES);
+
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(count);
+
+        for (Trajectory.State state : trajectory.getStates()) {
+            buffer.putDouble(state.timeSeconds);
+            buffer.putDouble(state.velocityMetersPerSecond);
+            buffer.putDouble(state.accelerationMetersPerSecondSq);
+            buffer.putDouble(state.poseMeters.getX());
+            buffer.putDouble(state.poseMeters.getY());
+            buffer.putDouble(state.poseMeters.getRotation().getRadians());
+            buffer.putDouble(state.curvatureRadPerMeter);
+        }
+
+        buffer.flip();
+        return buffer;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Reads one field of a state.
+     *
+     * @param state the index of the state
+     * @param field the field, one of the constants in this class
+     * @return the value
+     */
+    public double get(int state, int field) {
+        return states.get(state * RECORD_DOUBLES + field);
+    }
+
+    @Override
+    public double getTotalTimeSeconds() {
+        return count == 0 ? 0 : get(count - 1, TIME);
+    }
+
+    @Override
+    public Pose2d getInitialPose() {
+        return initialPose;
+    }
+
+    @Override
+    public void sample(double time, UniformTrajectory.Sample out) {
+        if (count == 0) {
+            return;
+        }
+
+        // the last state at or before the time
+        int low = 0;
+        int high = count - 1;
+        if (time >= get(high, TIME)) {
+            low = high;
+        }
+        while (low < high - 1) {
+            int middle = (low + high) >>> 1;
+            if (get(middle, TIME) <= time) {
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+
+        int next = Math.min(low + 1, count - 1);
+        double span = get(next, TIME) - get(low, TIME);
+        double t = span > 0 ? Functions.clampDouble((time - get(low, TIME)) / span, 1, 0) : 0;
+
+        out.x = lerp(low, next, X, t);
+        out.y = lerp(low, next, Y, t);
+        out.velocity = lerp(low, next, VELOCITY, t);
+        out.acceleration = lerp(low, next, ACCELERATION, t);
+        out.curvature = lerp(low, next, CURVATURE, t);
+        // the short way round, so it never spins across the wrap
+        double heading = get(low, HEADING);
+        out.heading = heading + Math.IEEEremainder(get(next, HEADING) - heading, 2 * Math.PI) * t;
+    }
+
+    private double lerp(int state, int next, int field, double t) {
+        double value = get(state, field);
+        return value + (get(next, field) - value) * t;
+    }
+}
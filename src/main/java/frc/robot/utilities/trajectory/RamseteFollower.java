@@ -0,0 +1,90 @@
+package frc.robot.utilities.trajectory;
+
+/**
+ * The Ramsete controller, worked out on primitives so following a trajectory never allocates.
+ * Gives the same result as WPILib's RamseteController followed by
+ * DifferentialDriveKinematics.toWheelSpeeds().
+ */
+public class RamseteFollower {
+
+    private final double b;
+    private final double zeta;
+    private final double trackWidth;
+
+    private double leftSpeed;
+    private double rightSpeed;
+
+    /**
+     * Creates a new Ramsete follower.
+     *
+     * @param b          tuning parameter (b &gt; 0) for how aggressively to converge, like a P term
+     * @param zeta       tuning parameter (0 &lt; zeta &lt; 1) for damping
+     * @param trackWidth the distance between the left and right wheels in meters
+     */
+    public RamseteFollower(double b, double zeta, double trackWidth) {
+        this.b = b;
+        this.zeta = zeta;
+        this.trackWidth = trackWidth;
+    }
+
+    /**
+     * Works out the wheel speeds to get from the current pose to the sample.
+     * Read the result with {@link #getLeftSpeed()} and {@link #getRightSpeed()}.
+     *
+     * @param x       the current x in meters
+     * @param y       the current y in meters
+     * @param heading the current heading in radians
+     * @param target  the trajectory sample to follow
+     */
+    public void calculate(double x, double y, double heading, UniformTrajectory.Sample target) {
+        double cos = Math.cos(heading);
+        double sin = Math.sin(heading);
+
+        // error in the robot's frame
+        double dx = target.x - x;
+        double dy = target.y - y;
+        double errorX = cos * dx + sin * dy;
+        double errorY = -sin * dx + cos * dy;
+        double errorHeading = Math.IEEEremainder(target.heading - heading, 2 * Math.PI);
+
+        double velocity = target.velocity;
+        double angularVelocity = target.velocity * target.curvature;
+
+        double k = 2.0 * zeta * Math.sqrt(
+            angularVelocity * angularVelocity + b * velocity * velocity);
+
+        double linear = velocity * Math.cos(errorHeading) + k * errorX;
+        double angular = angularVelocity
+            + k * errorHeading
+            + b * velocity * sinc(errorHeading) * errorY;
+
+        leftSpeed = linear - angular * trackWidth / 2;
+        rightSpeed = linear + angular * trackWidth / 2;
+    }
+
+    /**
+     * Gets the left wheel speed from the last calculation.
+     *
+     * @return the speed in m/s
+     */
+    public double getLeftSpeed() {
+        return leftSpeed;
+    }
+
+    /**
+     * Gets the right wheel speed from the last calculation.
+     *
+     * @return the speed in m/s
+     */
+    public double getRightSpeed() {
+        return rightSpeed;
+    }
+
+    private static double sinc(double x) {
+        if (Math.abs(x) < 1e-9) {
+            return 1.0 - x * x / 6.0;
+        } else {
+            return Math.sin(x) / x;
+        }
+    }
+}
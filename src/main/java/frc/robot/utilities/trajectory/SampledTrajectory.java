@@ -0,0 +1,26 @@
+package frc.robot.utilities.trajectory;
+
+import edu.wpi.first.math.geometry.Pose2d;
+
+/**
+ * A trajectory which can be sampled into a reused sample, so following it never allocates.
+ */
+public interface SampledTrajectory {
+
+    /**
+     * Samples the trajectory, times past the end get the last state.
+     *
+     * @param time the time since the start of the trajectory in seconds
+     * @param out  the sample to fill in
+     */
+    void sample(double time, UniformTrajectory.Sample out);
+
+    /**
+     * Gets the total time of the trajectory.
+     *
+     * @return the time in seconds
+     */
+    double getTotalTimeSeconds();
+
+    Pose2d getInitialPose();
+}
@@ -0,0 +1,198 @@
+package frc.robot.utilities.trajectory;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.DifferentialDriveKinematics;
+import edu.wpi.first.math.trajectory.Trajectory;
+import edu.wpi.first.math.trajectory.TrajectoryConfig;
+import edu.wpi.first.math.trajectory.TrajectoryGenerator;
+import edu.wpi.first.math.trajectory.constraint.TrajectoryConstraint;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Generates trajectories on a background thread and remembers the most recent ones.
+ * Asking for the same waypoints and config again gives back the same future,
+ * so each path is only ever generated once.
+ */
+public class TrajectoryCache {
+
+    private static TrajectoryCache instance = null;
+
+    // number of trajectories kept before the least recently used one is dropped
+    public static final int MAX_ENTRIES = 16;
+
+    private final ExecutorService worker;
+
+    // access ordered, so iteration order is least to most recently used
+    private final LinkedHashMap<Key, CompletableFuture<Trajectory>> cache =
+        new LinkedHashMap<>(MAX_ENTRIES, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(
+                Map.Entry<Key, CompletableFuture<Trajectory>> eldest) {
+                return size() > MAX_ENTRIES;
+            }
+        };
+
+    /**
+     * Gets the cache instance using the singleton pattern.
+     *
+     * @return the cache instance
+     */
+    public static synchronized TrajectoryCache getInstance() {
+        if (instance == null) {
+            instance = new TrajectoryCache();
+        }
+
+        return instance;
+    }
+
+    private TrajectoryCache() {
+        worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Trajectory generation thread");
+            thread.setDaemon(true);
+            // generation is never more important than the main loop
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    /**
+     * Gets a trajectory, generating it in the background if it isn't cached.
+     * The config is built here rather than passed in, since setKinematics() makes a new
+     * constraint every time and a config could never match a cached one.
+     *
+     * @param start           the starting pose
+     * @param interior        the interior waypoints
+     * @param end             the ending pose
+     * @param kinematics      the drive kinematics, so max speed is obeyed
+     * @param maxVelocity     the max velocity in m/s
+     * @param maxAcceleration the max acceleration in m/s^2
+     * @param constraints     extra constraints, compared by instance (use the static ones in
+     *                        Drivetrain, not new ones)
+     * @return a future which completes with the trajectory
+     */
+    public synchronized CompletableFuture<Trajectory> get(
+        Pose2d start,
+        List<Translation2d> interior,
+        Pose2d end,
+        DifferentialDriveKinematics kinematics,
+        double maxVelocity,
+        double maxAcceleration,
+        TrajectoryConstraint... constraints) {
+        Key key = new Key(start, interior, end, kinematics, maxVelocity, maxAcceleration, constraints);
+
+        CompletableFuture<Trajectory> future = cache.get(key);
+        if (future != null) {
+            return future;
+        }
+
+        future = CompletableFuture.supplyAsync(() -> {
+            TrajectoryConfig config = new TrajectoryConfig(maxVelocity, maxAcceleration)
+                .setKinematics(kinematics)
+                .addConstraints(Arrays.asList(constraints));
+
+            return TrajectoryGenerator.generateTrajectory(start, interior, end, config);
+        }, worker);
+
+        // cached before the callback is attached, since a generation which has already failed
+        // runs the callback right here
+        cache.put(key, future);
+
+        // failed generations aren't kept, so they can be tried again
+        CompletableFuture<Trajectory> generated = future;
+        future.whenComplete((trajectory, error) -> {
+            if (error != null) {
+                remove(key, generated);
+            }
+        });
+
+        return future;
+    }
+
+    // only removes the failed future, not one a later get() or clear() put in its place
+    private synchronized void remove(Key key, CompletableFuture<Trajectory> future) {
+        cache.remove(key, future);
+    }
+
+    /**
+     * Forgets every cached trajectory.
+     */
+    public synchronized void clear() {
+        cache.clear();
+    }
+
+    /**
+     * Everything that changes the generated trajectory.
+     */
+    private static class Key {
+        private final double[] values;
+        private final DifferentialDriveKinematics kinematics;
+        private final TrajectoryConstraint[] constraints;
+
+        Key(Pose2d start,
+            List<Translation2d> interior,
+            Pose2d end,
+            DifferentialDriveKinematics kinematics,
+            double maxVelocity,
+            double maxAcceleration,
+            TrajectoryConstraint[] constraints) {
+            values = new double[8 + interior.size() * 2];
+
+            int i = 0;
+            values[i++] = start.getX();
+            values[i++] = start.getY();
+            values[i++] = start.getRotation().getRadians();
+            values[i++] = end.getX();
+            values[i++] = end.getY();
+            values[i++] = end.getRotation().getRadians();
+
+            for (Translation2d waypoint : interior) {
+                values[i++] = waypoint.getX();
+                values[i++] = waypoint.getY();
+            }
+
+            values[i++] = maxVelocity;
+            values[i++] = maxAcceleration;
+
+            this.kinematics = kinematics;
+            this.constraints = constraints.clone();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+
+            Key key = (Key) other;
+            if (kinematics != key.kinematics
+                || !Arrays.equals(values, key.values)
+                || constraints.length != key.constraints.length) {
+                return false;
+            }
+
+            for (int i = 0; i < constraints.length; i++) {
+                if (constraints[i] != key.constraints[i]) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 31 * Arrays.hashCode(values) + System.identityHashCode(kinematics);
+            for (TrajectoryConstraint constraint : constraints) {
+                hash = 31 * hash + System.identityHashCode(constraint);
+            }
+            return hash;
+        }
+    }
+}
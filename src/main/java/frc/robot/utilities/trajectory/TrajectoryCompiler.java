@@ -0,0 +1,113 @@
+package frc.robot.utilities.trajectory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.wpi.first.math.spline.Spline;
+import edu.wpi.first.math.trajectory.Trajectory;
+import edu.wpi.first.math.trajectory.TrajectoryConfig;
+import edu.wpi.first.math.trajectory.TrajectoryGenerator;
+import edu.wpi.first.math.trajectory.TrajectoryGenerator.ControlVectorList;
+import frc.robot.utilities.lists.FieldConstants;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Generates every PathWeaver path ahead of time into {@link CompiledTrajectory} files.
+ * Run by the compileTrajectories gradle task, never on the robot.
+ *
+ * <p>Arguments: the paths directory, pathweaver.json and the output directory.
+ */
+public class TrajectoryCompiler {
+
+    /**
+     * Compiles every .path file.
+     *
+     * @param args paths directory, pathweaver.json, output directory
+     * @throws IOException if a file can't be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("usage: TrajectoryCompiler <paths dir> <pathweaver.json> <output dir>");
+            System.exit(1);
+        }
+
+        Path pathsDirectory = Path.of(args[0]);
+        Path outputDirectory = Path.of(args[2]);
+
+        JsonNode settings = new ObjectMapper().readTree(new File(args[1]));
+        double maxVelocity = settings.get("maxVelocity").asDouble();
+        double maxAcceleration = settings.get("maxAcceleration").asDouble();
+
+        Files.createDirectories(outputDirectory);
+
+        File[] paths = pathsDirectory.toFile().listFiles((dir, name) -> name.endsWith(".path"));
+        if (paths == null) {
+            throw new IOException(pathsDirectory + " is not a directory");
+        }
+
+        for (File path : paths) {
+            String name = path.getName().substring(0, path.getName().length() - ".path".length());
+
+            Trajectory trajectory = compile(path.toPath(), maxVelocity, maxAcceleration);
+
+            Path output = outputDirectory.resolve(name + CompiledTrajectory.EXTENSION);
+            try (FileChannel channel = FileChannel.open(output,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                channel.write(CompiledTrajectory.encode(trajectory));
+            }
+
+            System.out.println(String.format("compiled %s: %d states, %.2fs",
+                name, trajectory.getStates().size(), trajectory.getTotalTimeSeconds()));
+        }
+    }
+
+    /**
+     * Generates the trajectory for a PathWeaver path file the same way PathWeaver does.
+     *
+     * @param path            the .path file
+     * @param maxVelocity     the max velocity in m/s
+     * @param maxAcceleration the max acceleration in m/s^2
+     * @return the trajectory
+     * @throws IOException if the file can't be read
+     */
+    public static Trajectory compile(Path path, double maxVelocity, double maxAcceleration)
+            throws IOException {
+        List<String> lines = Files.readAllLines(path);
+
+        ControlVectorList controlVectors = new ControlVectorList();
+        boolean reversed = false;
+
+        // the first line is the header
+        for (int i = 1; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+
+            // X,Y,Tangent X,Tangent Y,Fixed Theta,Reversed,Name
+            String[] values = line.split(",");
+            double x = Double.parseDouble(values[0]);
+            // pathweaver's origin is the top left of the field, the field's is the bottom left
+            double y = Double.parseDouble(values[1]) + FieldConstants.FIELD_WIDTH;
+            double tangentX = Double.parseDouble(values[2]);
+            double tangentY = Double.parseDouble(values[3]);
+            reversed = Boolean.parseBoolean(values[5]);
+
+            controlVectors.add(new Spline.ControlVector(
+                new double[] {x, tangentX, 0},
+                new double[] {y, tangentY, 0}));
+        }
+
+        TrajectoryConfig config = new TrajectoryConfig(maxVelocity, maxAcceleration);
+        config.setReversed(reversed);
+
+        return TrajectoryGenerator.generateTrajectory(controlVectors, config);
+    }
+}
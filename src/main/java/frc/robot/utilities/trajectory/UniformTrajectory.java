@@ -0,0 +1,125 @@
+package frc.robot.utilities.trajectory;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.trajectory.Trajectory;
+
+/**
+ * A trajectory resampled onto a fixed time step.
+ * Every field is kept in its own array, so sampling is a direct index and a linear
+ * interpolation with no searching and no allocation.
+ */
+public class UniformTrajectory implements SampledTrajectory {
+
+    // default time between samples, matches the threaded follower's period
+    public static final double DEFAULT_STEP = 0.005;
+
+    private final double step;
+    private final int count;
+
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] headings;
+    private final double[] velocities;
+    private final double[] accelerations;
+    private final double[] curvatures;
+
+    private final Pose2d initialPose;
+
+    /**
+     * Resamples a trajectory onto a fixed time step.
+     * This allocates, so do it once when the command is created, not while following.
+     *
+     * @param trajectory the trajectory to resample
+     * @param step       the time between samples in seconds
+     */
+    public UniformTrajectory(Trajectory trajectory, double step) {
+        this.step = step;
+
+        double totalTime = trajectory.getTotalTimeSeconds();
+        count = (int) Math.ceil(totalTime / step) + 1;
+
+        xs = new double[count];
+        ys = new double[count];
+        headings = new double[count];
+        velocities = new double[count];
+        accelerations = new double[count];
+        curvatures = new double[count];
+
+        double lastHeading = 0;
+        for (int i = 0; i < count; i++) {
+            Trajectory.State state = trajectory.sample(Math.min(i * step, totalTime));
+
+            xs[i] = state.poseMeters.getX();
+            ys[i] = state.poseMeters.getY();
+            velocities[i] = state.velocityMetersPerSecond;
+            accelerations[i] = state.accelerationMetersPerSecondSq;
+            curvatures[i] = state.curvatureRadPerMeter;
+
+            // unwraps the heading so interpolating between samples never goes the long way
+            double heading = state.poseMeters.getRotation().getRadians();
+            if (i > 0) {
+                heading = lastHeading + Math.IEEEremainder(heading - lastHeading, 2 * Math.PI);
+            }
+            headings[i] = heading;
+            lastHeading = heading;
+        }
+
+        initialPose = trajectory.getInitialPose();
+    }
+
+    /**
+     * Resamples a trajectory onto the default time step.
+     *
+     * @param trajectory the trajectory to resample
+     */
+    public UniformTrajectory(Trajectory trajectory) {
+        this(trajectory, DEFAULT_STEP);
+    }
+
+    @Override
+    public void sample(double time, Sample out) {
+        double position = time / step;
+        int index = (int) position;
+
+        if (position <= 0) {
+            index = 0;
+            position = 0;
+        } else if (index >= count - 1) {
+            index = count - 1;
+            position = index;
+        }
+
+        int next = Math.min(index + 1, count - 1);
+        double t = position - index;
+
+        out.x = xs[index] + (xs[next] - xs[index]) * t;
+        out.y = ys[index] + (ys[next] - ys[index]) * t;
+        out.heading = headings[index] + (headings[next] - headings[index]) * t;
+        out.velocity = velocities[index] + (velocities[next] - velocities[index]) * t;
+        out.acceleration = accelerations[index] + (accelerations[next] - accelerations[index]) * t;
+        out.curvature = curvatures[index] + (curvatures[next] - curvatures[index]) * t;
+    }
+
+    @Override
+    public double getTotalTimeSeconds() {
+        return (count - 1) * step;
+    }
+
+    @Override
+    public Pose2d getInitialPose() {
+        return initialPose;
+    }
+
+    /**
+     * A reusable sample of the trajectory.
+     * Positions in meters, heading in radians, speeds in m/s.
+     */
+    public static class Sample {
+        public double x;
+        public double y;
+        public double heading;
+        public double velocity;
+        public double acceleration;
+        public double curvature;
+    }
+}
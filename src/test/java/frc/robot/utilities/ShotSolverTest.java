@@ -0,0 +1,44 @@
+package frc.robot.utilities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Checks the shot solver moves the virtual hub the right way for the robot's motion.
+ */
+public class ShotSolverTest {
+
+    // any speed function will do, this one makes the rpm easy to check
+    private final ShotSolver solver = new ShotSolver((distance, hoodUp) -> distance * 10);
+
+    @Test
+    public void stationaryShotIsUnchanged() {
+        solver.solve(120, 15, 0, 0, false);
+
+        assertEquals(15, solver.getAimOffset(), 1e-9);
+        assertEquals(120, solver.getDistance(), 1e-6);
+        assertEquals(1200, solver.getRPM(), 1e-5);
+    }
+
+    @Test
+    public void drivingAtTheHubShortensTheShot() {
+        solver.solve(120, 0, 2, 2, false);
+
+        assertEquals(0, solver.getAimOffset(), 1e-9);
+        assertTrue("distance should be under 120, was " + solver.getDistance(), solver.getDistance() < 120);
+    }
+
+    @Test
+    public void hubToTheSideAimsFurtherWithSpeed() {
+        solver.solve(120, 30, 1, 1, false);
+        double slow = solver.getAimOffset();
+
+        solver.solve(120, 30, 2, 2, false);
+        double fast = solver.getAimOffset();
+
+        assertTrue("slow offset should be past 30, was " + slow, slow > 30);
+        assertTrue("fast offset should be past " + slow + ", was " + fast, fast > slow);
+    }
+}
@@ -0,0 +1,39 @@
+package frc.robot.utilities.stats;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Checks WindowedExtrema against a scan of the whole window every step.
+ */
+public class WindowedExtremaTest {
+
+    private static final int VALUES = 10_000;
+
+    @Test
+    public void matchesBruteForce() {
+        for (int size : new int[] {1, 2, 7, 50}) {
+            Random random = new Random(size);
+            WindowedExtrema extrema = new WindowedExtrema(size);
+            double[] history = new double[VALUES];
+
+            for (int i = 0; i < VALUES; i++) {
+                // few distinct values, so ties are tested as well
+                history[i] = random.nextInt(20);
+                extrema.add(history[i]);
+
+                double min = Double.POSITIVE_INFINITY;
+                double max = Double.NEGATIVE_INFINITY;
+                for (int j = Math.max(0, i - size + 1); j <= i; j++) {
+                    min = Math.min(min, history[j]);
+                    max = Math.max(max, history[j]);
+                }
+
+                assertEquals("min at " + i, min, extrema.getMin(), 0);
+                assertEquals("max at " + i, max, extrema.getMax(), 0);
+            }
+        }
+    }
+}
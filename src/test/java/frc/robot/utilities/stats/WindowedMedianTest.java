@@ -0,0 +1,49 @@
+package frc.robot.utilities.stats;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Checks WindowedMedian against sorting the whole window every step.
+ */
+public class WindowedMedianTest {
+
+    private static final int VALUES = 10_000;
+
+    @Test
+    public void matchesBruteForce() {
+        for (int size : new int[] {1, 2, 3, 8}) {
+            Random random = new Random(size);
+            WindowedMedian median = new WindowedMedian(size);
+            double[] history = new double[VALUES];
+
+            for (int i = 0; i < VALUES; i++) {
+                history[i] = random.nextInt(20);
+                double result = median.add(history[i]);
+
+                double[] window = Arrays.copyOfRange(history, Math.max(0, i - size + 1), i + 1);
+                Arrays.sort(window);
+                int middle = window.length / 2;
+                double expected = window.length % 2 == 1
+                    ? window[middle]
+                    : (window[middle - 1] + window[middle]) / 2;
+
+                assertEquals("median at " + i, expected, result, 0);
+            }
+        }
+    }
+
+    @Test
+    public void skipsNaN() {
+        WindowedMedian median = new WindowedMedian(3);
+        median.add(1);
+        median.add(Double.NaN);
+        median.add(3);
+
+        assertEquals(2, median.getCount());
+        assertEquals(2, median.getMedian(), 0);
+    }
+}
@@ -0,0 +1,58 @@
+package frc.robot.utilities.stats;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Checks WindowedStats against the mean and variance worked out from scratch every step.
+ */
+public class WindowedStatsTest {
+
+    private static final int VALUES = 10_000;
+
+    @Test
+    public void matchesBruteForce() {
+        for (int size : new int[] {1, 2, 7, 50}) {
+            Random random = new Random(size);
+            WindowedStats stats = new WindowedStats(size);
+            double[] history = new double[VALUES];
+
+            for (int i = 0; i < VALUES; i++) {
+                // a large offset, so drift in the running sums would show
+                history[i] = 1000 + random.nextGaussian() * 10;
+                stats.add(history[i]);
+
+                int start = Math.max(0, i - size + 1);
+                int count = i - start + 1;
+
+                double sum = 0;
+                for (int j = start; j <= i; j++) {
+                    sum += history[j];
+                }
+                double mean = sum / count;
+
+                double squares = 0;
+                for (int j = start; j <= i; j++) {
+                    squares += (history[j] - mean) * (history[j] - mean);
+                }
+
+                assertEquals("count", count, stats.getCount());
+                assertEquals("mean at " + i, mean, stats.getMean(), 1e-9);
+                assertEquals("variance at " + i, squares / count, stats.getVariance(), 1e-6);
+            }
+        }
+    }
+
+    @Test
+    public void fillReplacesTheWindow() {
+        WindowedStats stats = new WindowedStats(4);
+        stats.add(10);
+        stats.fill(2);
+
+        assertEquals(4, stats.getCount());
+        assertEquals(2, stats.getMean(), 0);
+        assertEquals(0, stats.getVariance(), 0);
+    }
+}